@@ -0,0 +1,63 @@
+package collinear_points;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// find segments among random distinct points, a quarter of them placed on 8-point lines
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastCollinearPointsBenchmark {
+
+    @Param({"64", "512", "2048"})
+    public int points;
+
+    private Point[] pointSet;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Set<Long> used = new HashSet<>();
+        pointSet = new Point[points];
+        int count = 0;
+        // lines of 8 evenly spaced points
+        while (count < points / 4) {
+            int x = random.nextInt(16384);
+            int y = random.nextInt(16384);
+            int dx = 1 + random.nextInt(64);
+            int dy = random.nextInt(64);
+            for (int i = 0; i < 8 && count < points / 4; i++)
+                if (used.add(((long) (x + i * dx) << 32) | (y + i * dy)))
+                    pointSet[count++] = new Point(x + i * dx, y + i * dy);
+        }
+        while (count < points) {
+            int x = random.nextInt(32768);
+            int y = random.nextInt(32768);
+            if (used.add(((long) x << 32) | y))
+                pointSet[count++] = new Point(x, y);
+        }
+    }
+
+    @Benchmark
+    public int findSegments() {
+        return new FastCollinearPoints(pointSet).numberOfSegments();
+    }
+
+}
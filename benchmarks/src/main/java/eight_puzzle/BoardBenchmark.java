@@ -0,0 +1,62 @@
+package eight_puzzle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// expand a 4-by-4 board's neighbours and score them by Manhattan distance, as a search step does:
+// through Board, through PackedBoard objects, and on raw packed longs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private Board board;
+    private PackedBoard packedBoard;
+    private final long[] states = new long[4];
+
+    @Setup
+    public void setUp() {
+        board = new Board(new int[][] {{5, 1, 3, 4}, {9, 2, 6, 8}, {13, 0, 7, 11}, {14, 10, 15, 12}});
+        packedBoard = new PackedBoard(board);
+    }
+
+    @Benchmark
+    public int board() {
+        int sum = 0;
+        for (Board neighbour : board.neighbors())
+            sum += neighbour.manhattan();
+        return sum;
+    }
+
+    @Benchmark
+    public int packedBoard() {
+        int sum = 0;
+        for (PackedBoard neighbour : packedBoard.neighbors())
+            sum += neighbour.manhattan();
+        return sum;
+    }
+
+    @Benchmark
+    public int packedLongs() {
+        long tiles = packedBoard.tiles();
+        int count = PackedBoard.neighbours(tiles, 4, PackedBoard.blankIndex(tiles, 4), states);
+        int sum = 0;
+        for (int i = 0; i < count; i++)
+            sum += PackedBoard.manhattan(states[i], 4);
+        return sum;
+    }
+
+}
@@ -0,0 +1,89 @@
+package eight_puzzle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// solve a puzzle with Solver (A*) and with IDAStarSolver: either one of eight_puzzle/puzzle_text_files
+// ("file:p1.txt") or one generated by a seeded random walk away from the goal ("walk:<n>:<moves>"),
+// where more moves means a harder puzzle, or the unsolvable twin of such a walk ("twin:<n>:<moves>").
+// Run from the repository root, or point -Dpuzzles.dir at the puzzle files.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"file:p1.txt", "file:p2.txt", "walk:3:30", "walk:3:60", "walk:4:30", "walk:4:50", "walk:5:40", "twin:4:50"})
+    public String puzzle;
+
+    private Board board;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] parts = puzzle.split(":");
+        if (parts[0].equals("file"))
+            board = readBoard(Paths.get(System.getProperty("puzzles.dir", "eight_puzzle/puzzle_text_files"), parts[1]));
+        else if (parts[0].equals("twin"))
+            board = randomWalk(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])).twin();
+        else
+            board = randomWalk(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+    }
+
+    @Benchmark
+    public int solve() {
+        return new Solver(board).moves();
+    }
+
+    @Benchmark
+    public int solveIdaStar() {
+        return new IDAStarSolver(board).moves();
+    }
+
+    private static Board readBoard(Path file) throws IOException {
+        String[] tokens = new String(Files.readAllBytes(file)).trim().split("\\s+");
+        int n = Integer.parseInt(tokens[0]);
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n * n; i++)
+            tiles[i / n][i % n] = Integer.parseInt(tokens[i + 1]);
+        return new Board(tiles);
+    }
+
+    private static Board randomWalk(int n, int moves) {
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < (n * n) - 1; i++)
+            tiles[i / n][i % n] = i + 1;
+        Board current = new Board(tiles);
+        Board previous = null;
+        Random random = new Random(n * 1000L + moves);
+        for (int move = 0; move < moves; move++) {
+            List<Board> choices = new ArrayList<>();
+            for (Board neighbour : current.neighbors())
+                if (!neighbour.equals(previous))
+                    choices.add(neighbour);
+            previous = current;
+            current = choices.get(random.nextInt(choices.size()));
+        }
+        return current;
+    }
+
+}
@@ -0,0 +1,64 @@
+package percolation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// one full trial: build an n-by-n grid and open sites in a fixed random order until it percolates
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PercolationBenchmark {
+
+    @Param({"64", "256", "1024"})
+    public int n;
+
+    @Param({"percolation", "fast"})
+    public String grid;
+
+    private int[] rows;
+    private int[] cols;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] order = new int[n * n];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+        rows = new int[order.length];
+        cols = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            rows[i] = (order[i] / n) + 1;
+            cols[i] = (order[i] % n) + 1;
+        }
+    }
+
+    @Benchmark
+    public int openUntilPercolates() {
+        PercolationSystem percolation = grid.equals("fast") ? new FastPercolation(n) : new Percolation(n);
+        for (int i = 0; !percolation.percolates(); i++)
+            percolation.open(rows[i], cols[i]);
+        return percolation.numberOfOpenSites();
+    }
+
+}
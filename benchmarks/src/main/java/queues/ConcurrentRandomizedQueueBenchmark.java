@@ -0,0 +1,59 @@
+package queues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// every thread enqueues then dequeues on one shared queue, striped (ConcurrentRandomizedQueue) or a
+// RandomizedQueue guarded by synchronized; run with -t to see how each scales with threads
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class ConcurrentRandomizedQueueBenchmark {
+
+    private static final Integer ITEM = 42;
+
+    @Param({"striped", "synchronized"})
+    public String impl;
+
+    private ConcurrentRandomizedQueue<Integer> striped;
+    private RandomizedQueue<Integer> locked;
+
+    @Setup
+    public void setUp() {
+        striped = new ConcurrentRandomizedQueue<>();
+        locked = new RandomizedQueue<>();
+        for (int i = 0; i < 1024; i++) { // start non-empty so dequeues rarely find a segment empty
+            striped.enqueue(ITEM);
+            locked.enqueue(ITEM);
+        }
+    }
+
+    @Benchmark
+    public Integer enqueueDequeue() {
+        if (impl.equals("striped")) {
+            striped.enqueue(ITEM);
+            return striped.poll();
+        }
+        synchronized (locked) {
+            locked.enqueue(ITEM);
+            return locked.dequeue();
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package queues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// fill a deque from the front and drain it from the back, for the linked Deque, RingBufferDeque and IntDeque
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DequeBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    @Param({"linked", "ring", "int"})
+    public String impl;
+
+    @Benchmark
+    public int addFirstRemoveLast() {
+        int sum = 0;
+        if (impl.equals("int")) {
+            IntDeque deque = new IntDeque();
+            for (int i = 0; i < size; i++)
+                deque.addFirst(i);
+            while (!deque.isEmpty())
+                sum += deque.removeLast();
+        } else if (impl.equals("ring")) {
+            RingBufferDeque<Integer> deque = new RingBufferDeque<>();
+            for (int i = 0; i < size; i++)
+                deque.addFirst(i);
+            while (!deque.isEmpty())
+                sum += deque.removeLast();
+        } else {
+            Deque<Integer> deque = new Deque<>();
+            for (int i = 0; i < size; i++)
+                deque.addFirst(i);
+            while (!deque.isEmpty())
+                sum += deque.removeLast();
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,50 @@
+package queues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// fill a randomized queue and dequeue every item, boxed (RandomizedQueue) or primitive (IntRandomizedQueue)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomizedQueueBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    @Param({"boxed", "int"})
+    public String impl;
+
+    @Benchmark
+    public int enqueueDequeue() {
+        int sum = 0;
+        if (impl.equals("int")) {
+            IntRandomizedQueue queue = new IntRandomizedQueue();
+            for (int i = 0; i < size; i++)
+                queue.enqueue(i);
+            while (!queue.isEmpty())
+                sum += queue.dequeue();
+        } else {
+            RandomizedQueue<Integer> queue = new RandomizedQueue<>();
+            for (int i = 0; i < size; i++)
+                queue.enqueue(i);
+            while (!queue.isEmpty())
+                sum += queue.dequeue();
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,67 @@
+package queues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// fill a randomized queue with size items and drain it k at a time, one item per call (single) or
+// through enqueueAll and dequeue(k) (bulk)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomizedQueueBulkBenchmark {
+
+    @Param({"65536"})
+    public int size;
+
+    @Param({"1024", "4096"})
+    public int k;
+
+    @Param({"single", "bulk"})
+    public String mode;
+
+    private Integer[] items;
+
+    @Setup
+    public void setUp() {
+        items = new Integer[size];
+        for (int i = 0; i < size; i++)
+            items[i] = i;
+    }
+
+    @Benchmark
+    public int fillAndDrain() {
+        RandomizedQueue<Integer> queue = new RandomizedQueue<>();
+        int sum = 0;
+        if (mode.equals("bulk")) {
+            queue.enqueueAll(items);
+            while (!queue.isEmpty()) {
+                List<Integer> batch = queue.dequeue(Math.min(k, queue.size()));
+                for (int i = 0; i < batch.size(); i++)
+                    sum += batch.get(i);
+            }
+        } else {
+            for (Integer item : items)
+                queue.enqueue(item);
+            while (!queue.isEmpty())
+                for (int i = Math.min(k, queue.size()); i > 0; i--)
+                    sum += queue.dequeue();
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,116 @@
+package queues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// one owner pushing every third item to the front and the rest to the back (popping back once the
+// deque holds BACKLOG items) against three thieves taking from the front, for WorkStealingDeque
+// and for Deque guarded by synchronized. Items are distinct sequence numbers, and after every
+// iteration the items taken (plus those left) must be exactly the items pushed: the same count,
+// sum and sum of squares, which a lost or twice-taken item would change.
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkStealingDequeBenchmark {
+
+    private static final int BACKLOG = 1024;
+
+    private final WorkStealingDeque<Integer> lockFree = new WorkStealingDeque<>();
+    private final Deque<Integer> locked = new Deque<>();
+
+    // written by the owner thread only
+    private int next;
+    private long pushedSum;
+    private long pushedSquares;
+
+    private final LongAdder takenCount = new LongAdder();
+    private final LongAdder takenSum = new LongAdder();
+    private final LongAdder takenSquares = new LongAdder();
+
+    @Benchmark
+    @Group("lockFree")
+    @GroupThreads(1)
+    public Integer lockFreeOwner() {
+        Integer item = push();
+        if ((item % 3) == 0)
+            lockFree.addFirst(item);
+        else
+            lockFree.addLast(item);
+        return (lockFree.size() > BACKLOG) ? taken(lockFree.pollLast()) : null;
+    }
+
+    @Benchmark
+    @Group("lockFree")
+    @GroupThreads(3)
+    public Integer lockFreeThief() {
+        return taken(lockFree.pollFirst());
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(1)
+    public Integer synchronizedOwner() {
+        Integer item = push();
+        synchronized (locked) {
+            if ((item % 3) == 0)
+                locked.addFirst(item);
+            else
+                locked.addLast(item);
+            return (locked.size() > BACKLOG) ? taken(locked.removeLast()) : null;
+        }
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(3)
+    public Integer synchronizedThief() {
+        synchronized (locked) {
+            return locked.isEmpty() ? null : taken(locked.removeFirst());
+        }
+    }
+
+    // drain whatever is left, then check nothing was lost or taken twice
+    @TearDown(Level.Iteration)
+    public void checkEveryItemTakenOnce() {
+        for (Integer item = lockFree.pollFirst(); item != null; item = lockFree.pollFirst())
+            taken(item);
+        while (!locked.isEmpty())
+            taken(locked.removeFirst());
+        if (takenCount.sum() != next || takenSum.sum() != pushedSum || takenSquares.sum() != pushedSquares)
+            throw new IllegalStateException("items lost or taken twice: " + takenCount.sum() + " taken of " + next);
+    }
+
+    private Integer push() {
+        int item = next++;
+        pushedSum += item;
+        pushedSquares += (long) item * item;
+        return item;
+    }
+
+    private Integer taken(Integer item) {
+        if (item != null) {
+            takenCount.increment();
+            takenSum.add(item);
+            takenSquares.add((long) item * item);
+        }
+        return item;
+    }
+
+}
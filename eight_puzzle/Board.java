@@ -2,10 +2,18 @@ package eight_puzzle;
 
 import edu.princeton.cs.algs4.Stack;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 public class Board {
 
     private final int[] tiles;
     private final int n;
+    private final int blankTileIndex; // cached, or -1 if there is no blank
+    private final int manhattan; // cached - a neighbour's is derived from its parent's in O(1)
+    private final long key; // compact hash of the tiles, likewise updated in O(1) - see key()
 
     // create a board from an n-by-n array of tiles,
     // where tiles[row][col] = tile at (row, col)
@@ -16,6 +24,9 @@ public class Board {
         for (int row = 0; row < n; row++)
             for (int column = 0; column < n; column++)
                 this.tiles[(row * n) + column] = tiles[row][column];
+        this.blankTileIndex = findBlankTileIndex();
+        this.manhattan = computeManhattan();
+        this.key = computeKey();
     }
 
     private Board(int[] tiles) {
@@ -23,6 +34,18 @@ public class Board {
         this.tiles = new int[n * n];
         for (int i = 0; i < n * n; i++)
             this.tiles[i] = tiles[i];
+        this.blankTileIndex = findBlankTileIndex();
+        this.manhattan = computeManhattan();
+        this.key = computeKey();
+    }
+
+    // takes ownership of tiles, whose blank index and manhattan distance are already known
+    private Board(int[] tiles, int n, int blankTileIndex, int manhattan, long key) {
+        this.tiles = tiles;
+        this.n = n;
+        this.blankTileIndex = blankTileIndex;
+        this.manhattan = manhattan;
+        this.key = key;
     }
 
     // string representation of this board
@@ -42,6 +65,11 @@ public class Board {
         return this.n;
     }
 
+    // tile at row-major index (0 for the blank), for other representations in this package
+    int tileAt(int index) {
+        return tiles[index];
+    }
+
     // number of tiles out of place
     public int hamming() {
         int todoCount = 0;
@@ -53,6 +81,10 @@ public class Board {
 
     // sum of Manhattan distances between tiles and goal
     public int manhattan() {
+        return manhattan;
+    }
+
+    private int computeManhattan() {
         int sum = 0;
         for (int i = 0; i < n * n; i++)
             if (isTileOutOfPlace(i))
@@ -79,6 +111,34 @@ public class Board {
         return true;
     }
 
+    // Can this board reach the goal? A slide along a row leaves the order of the tiles (read
+    // row-major, ignoring the blank) unchanged, and a slide between rows passes a tile over n - 1
+    // others, so for odd n the parity of the number of inversions never changes, and for even n
+    // inversions plus the blank's row changes parity with every vertical slide; solvable boards are
+    // those matching the goal's parity. Inversions are counted with a Fenwick tree over tile values
+    // in O(n^2 log n).
+    boolean hasSolvableParity() {
+        if (blankTileIndex < 0)
+            return false;
+        int[] fenwick = new int[n * n]; // counts of tiles 1..n*n-1 seen so far
+        long inversions = 0;
+        int seen = 0;
+        for (int tile : tiles) {
+            if (tile == 0)
+                continue;
+            int notGreater = 0;
+            for (int i = tile; i > 0; i -= i & -i)
+                notGreater += fenwick[i];
+            inversions += seen - notGreater; // tiles before this one with greater values
+            for (int i = tile; i < fenwick.length; i += i & -i)
+                fenwick[i]++;
+            seen++;
+        }
+        if (n % 2 == 1)
+            return inversions % 2 == 0;
+        return (inversions + (blankTileIndex / n)) % 2 == 1;
+    }
+
     // does this board equal y?
     public boolean equals(Object y) {
         if (y == this)
@@ -102,30 +162,74 @@ public class Board {
         return true;
     }
 
+    public int hashCode() {
+        return Long.hashCode(key * 0x9E3779B97F4A7C15L);
+    }
+
+    // A 64-bit key for the tiles: for boards up to 4-by-4 the tiles packed 4 bits each, as
+    // PackedBoard does, so equal keys mean equal boards; for larger boards a Zobrist hash, the xor of
+    // a random-looking value per (position, tile), where distinct boards collide with probability
+    // about 2^-64. Either way it is the xor of each non-blank tile's keyOf, so a slide updates it with
+    // two xors.
+    long key() {
+        return key;
+    }
+
+    private long computeKey() {
+        long sum = 0;
+        for (int i = 0; i < tiles.length; i++)
+            sum ^= keyOf(i, tiles[i]);
+        return sum;
+    }
+
+    private long keyOf(int index, int tile) {
+        if (tile == 0)
+            return 0;
+        if (n <= PackedBoard.MAX_DIMENSION)
+            return PackedBoard.nibble(index, tile);
+        long z = (((long) index << 32) | tile) * 0x9E3779B97F4A7C15L; // SplitMix64's finaliser
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
     // all neighboring boards
     public Iterable<Board> neighbors() {
         Stack<Board> neighbours = new Stack<>();
-        int blankTileIndex = getBlankTileIndex();
+        if (blankTileIndex < 0)
+            throw new NoSuchFieldError("No Blank Tile present on the grid"); // error - no blank tile?
         int blankTileI = blankTileIndex / n;
         int blankTileJ = blankTileIndex % n;
 
         if (blankTileI > 0)
-            neighbours.push(new Board(swapTwoTiles(blankTileI, blankTileJ, (blankTileI - 1), blankTileJ)));
+            neighbours.push(slideIntoBlank(blankTileIndex - n));
         if (blankTileI < (n - 1))
-            neighbours.push(new Board(swapTwoTiles(blankTileI, blankTileJ, (blankTileI + 1), blankTileJ)));
+            neighbours.push(slideIntoBlank(blankTileIndex + n));
         if (blankTileJ > 0)
-            neighbours.push(new Board(swapTwoTiles(blankTileI, blankTileJ, blankTileI, (blankTileJ - 1))));
+            neighbours.push(slideIntoBlank(blankTileIndex - 1));
         if (blankTileJ < (n - 1))
-            neighbours.push(new Board(swapTwoTiles(blankTileI, blankTileJ, blankTileI, (blankTileJ + 1))));
+            neighbours.push(slideIntoBlank(blankTileIndex + 1));
 
         return neighbours;
     }
 
-    private int getBlankTileIndex() {
+    // the board with the tile at index slid into the adjacent blank; only that tile moves, so the
+    // manhattan distance changes by its distance from the blank's position less that from its own
+    private Board slideIntoBlank(int index) {
+        int[] copiedBoard = tiles.clone();
+        int tile = copiedBoard[index];
+        copiedBoard[blankTileIndex] = tile;
+        copiedBoard[index] = 0;
+        int neighbourManhattan = manhattan + manhattan(blankTileIndex, tile) - manhattan(index, tile);
+        long neighbourKey = key ^ keyOf(index, tile) ^ keyOf(blankTileIndex, tile);
+        return new Board(copiedBoard, n, index, neighbourManhattan, neighbourKey);
+    }
+
+    private int findBlankTileIndex() {
         for (int i = 0; i < tiles.length; i++)
             if (tiles[i] == 0)
                 return i;
-        throw new NoSuchFieldError("No Blank Tile present on the grid"); // error - no blank tile?
+        return -1;
     }
 
     private int[] swapTwoTiles(int i, int j, int i2, int j2) {
@@ -145,15 +249,84 @@ public class Board {
         return new Board(swapTwoTiles(1, 0, 1, 1));
     }
 
+    // test client: the blank index, Manhattan distance and key each neighbour derives from its parent
+    // match those computed from scratch, along random walks on boards of dimension 2 to 6; then the
+    // solvability parity test against breadth-first search, and unsolvable twins against both solvers
     public static void main(String[] args) {
         int[] tilesIn = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34, 35, 36, 37, 38, 39, 40, 41, 42, 43, 44, 45, 46, 47, 48, 49, 50, 51, 52, 53, 54, 55, 56, 57, 58, 59, 60, 61, 62, 63, 64, 0, 65, 67, 68, 69, 70, 72, 73, 74, 66, 75, 76, 77, 79, 71, 80}; // {1, 0, 2, 3}; // {1, 2, 3, 4, 5, 6, 7, 8, 0};
         Board b = new Board(tilesIn);
+        System.out.println(b.equals(new Board(tilesIn)));
+
+        Random random = new Random(42);
+        for (int n = 2; n <= 6; n++) {
+            int[] goal = new int[n * n];
+            for (int i = 0; i < goal.length - 1; i++)
+                goal[i] = i + 1;
+            Board board = new Board(goal);
+            int steps = 20_000;
+            for (int step = 0; step < steps; step++) {
+                List<Board> neighbours = new ArrayList<>();
+                for (Board neighbour : board.neighbors())
+                    neighbours.add(neighbour);
+                board = neighbours.get(random.nextInt(neighbours.size()));
+                Board recomputed = new Board(board.tiles);
+                if (board.blankTileIndex != recomputed.blankTileIndex || board.manhattan != recomputed.manhattan
+                        || board.key != recomputed.key || board.hashCode() != recomputed.hashCode())
+                    throw new IllegalStateException("incremental state differs from recomputed on\n" + board);
+            }
+            System.out.println(n + "-by-" + n + ": " + steps + " slides, incremental blank, manhattan and key match");
+        }
 
-        //System.out.println(b.toString());
-        //b = b.twin();
-        //System.out.println(b.toString());
+        // the parity test agrees with breadth-first search from the goal on every 2-by-2 and 3-by-3 board
+        for (int n = 2; n <= 3; n++) {
+            Map<Long, Integer> distances = PackedBoard.distancesFromGoal(n);
+            int[] permutation = new int[n * n];
+            for (int i = 0; i < permutation.length; i++)
+                permutation[i] = i;
+            int boards = 0;
+            do {
+                Board board = new Board(permutation.clone());
+                if (board.hasSolvableParity() != distances.containsKey(new PackedBoard(board).tiles()))
+                    throw new IllegalStateException("parity disagrees with reachability on\n" + board);
+                boards++;
+            } while (nextPermutation(permutation));
+            System.out.println(n + "-by-" + n + ": parity matches reachability on all " + boards + " boards");
+        }
 
-        System.out.println(b.equals(new Board(tilesIn)));
+        // a twin has the opposite parity, and both solvers report unsolvable boards as such
+        for (int check = 0; check < 200; check++) {
+            Board board = Solver.randomBoard(3 + (check % 4), random);
+            if (board.twin().hasSolvableParity() == board.hasSolvableParity())
+                throw new IllegalStateException("twin has the same parity as\n" + board);
+            Board unsolvable = board.hasSolvableParity() ? board.twin() : board;
+            Solver solver = new Solver(unsolvable);
+            IDAStarSolver idaStarSolver = new IDAStarSolver(unsolvable);
+            if (solver.isSolvable() || solver.moves() != -1 || solver.solution() != null
+                    || idaStarSolver.isSolvable() || idaStarSolver.moves() != -1 || idaStarSolver.solution() != null)
+                throw new IllegalStateException("a solver does not report unsolvable\n" + unsolvable);
+        }
+        System.out.println("200 random boards: twins flip parity, unsolvable boards reported by both solvers");
+    }
+
+    // rearrange a into the next permutation in lexicographic order; false if it was the last
+    private static boolean nextPermutation(int[] a) {
+        int i = a.length - 2;
+        while (i >= 0 && a[i] >= a[i + 1])
+            i--;
+        if (i < 0)
+            return false;
+        int j = a.length - 1;
+        while (a[j] <= a[i])
+            j--;
+        int temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+        for (int lo = i + 1, hi = a.length - 1; lo < hi; lo++, hi--) {
+            temp = a[lo];
+            a[lo] = a[hi];
+            a[hi] = temp;
+        }
+        return true;
     }
 
 }
\ No newline at end of file
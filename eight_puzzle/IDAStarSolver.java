@@ -0,0 +1,209 @@
+package eight_puzzle;
+
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.Stack;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+// Iterative-deepening A*: repeated depth-first searches, each cut off where moves plus Manhattan
+// distance exceed a bound that starts at the initial board's Manhattan distance and rises to the
+// smallest value that exceeded it last time. Manhattan distance never overestimates, so the first
+// solution found is a shortest one. Unlike Solver nothing is kept but the current path - the search
+// slides tiles on one int[] and slides them back on the way out, updating the Manhattan distance by
+// the moved tile's change - so memory is O(moves) however hard the puzzle, at the cost of
+// re-expanding the shallower levels on every iteration.
+public class IDAStarSolver {
+
+    private static final int FOUND = -1;
+
+    private final Board initial;
+    private final boolean isSolvable;
+    private final int n;
+    private final int[] tiles; // the board being searched, changed in place
+    private final int[] distance; // distance[tile * n * n + index] = tile's Manhattan distance from index
+    private int blank;
+    private int manhattan;
+    private int[] path; // path[i] = index the blank moved to on move i
+    private Stack<Board> solutions;
+
+    public IDAStarSolver(Board initial) {
+        if (initial == null)
+            throw new IllegalArgumentException("Cannot pass in a null board");
+
+        this.initial = initial;
+        n = initial.dimension();
+        tiles = new int[n * n];
+        for (int i = 0; i < n * n; i++) {
+            tiles[i] = initial.tileAt(i);
+            if (tiles[i] == 0)
+                blank = i;
+        }
+        distance = new int[n * n * n * n];
+        for (int tile = 1; tile < n * n; tile++)
+            for (int i = 0; i < n * n; i++)
+                distance[(tile * n * n) + i] = Math.abs((tile - 1) / n - i / n) + Math.abs((tile - 1) % n - i % n);
+
+        isSolvable = initial.hasSolvableParity();
+        if (!isSolvable)
+            return; // every search would run forever
+
+        manhattan = initial.manhattan();
+        path = new int[Math.max(16, manhattan)];
+        int bound = manhattan;
+        while (true) {
+            int next = search(0, bound, -1);
+            if (next == FOUND)
+                break;
+            bound = next;
+        }
+    }
+
+    // depth-first search from the current board, moves made so far; returns FOUND, or the smallest
+    // moves plus Manhattan distance that exceeded bound
+    private int search(int moves, int bound, int previousBlank) {
+        int estimate = moves + manhattan;
+        if (estimate > bound)
+            return estimate;
+        if (manhattan == 0) {
+            recordSolution(moves);
+            return FOUND;
+        }
+
+        int smallest = Integer.MAX_VALUE;
+        int row = blank / n;
+        int col = blank % n;
+        for (int direction = 0; direction < 4; direction++) {
+            int next;
+            if (direction == 0) {
+                if (row == 0) continue;
+                next = blank - n;
+            } else if (direction == 1) {
+                if (row == n - 1) continue;
+                next = blank + n;
+            } else if (direction == 2) {
+                if (col == 0) continue;
+                next = blank - 1;
+            } else {
+                if (col == n - 1) continue;
+                next = blank + 1;
+            }
+            if (next == previousBlank) // undoing the last move never helps
+                continue;
+
+            // make the move: slide the tile at next into the blank
+            int from = blank;
+            int tile = tiles[next];
+            int change = distance[(tile * n * n) + from] - distance[(tile * n * n) + next];
+            tiles[from] = tile;
+            tiles[next] = 0;
+            blank = next;
+            manhattan += change;
+            if (moves == path.length)
+                path = Arrays.copyOf(path, 2 * path.length);
+            path[moves] = next;
+
+            int result = search(moves + 1, bound, from);
+
+            // unmake it
+            manhattan -= change;
+            blank = from;
+            tiles[next] = tile;
+            tiles[from] = 0;
+
+            if (result == FOUND)
+                return FOUND;
+            smallest = Math.min(smallest, result);
+        }
+        return smallest;
+    }
+
+    // replay the path from the initial board, keeping every board on the way
+    private void recordSolution(int moves) {
+        Board[] boards = new Board[moves + 1];
+        boards[0] = initial;
+        for (int move = 0; move < moves; move++) {
+            for (Board neighbour : boards[move].neighbors()) {
+                if (neighbour.tileAt(path[move]) == 0) {
+                    boards[move + 1] = neighbour;
+                    break;
+                }
+            }
+        }
+        solutions = new Stack<>();
+        for (int move = moves; move >= 0; move--)
+            solutions.push(boards[move]);
+    }
+
+    public boolean isSolvable() {
+        return this.isSolvable;
+    }
+
+    public int moves() {
+        if (!isSolvable())
+            return -1;
+        return solutions.size() - 1; // number of board states we go to until solution found
+    }
+
+    public Iterable<Board> solution() {
+        if (isSolvable())
+            return solutions;
+        return null;
+    }
+
+    // test client: solves the puzzle in the given file (default eight_puzzle/puzzle_text_files/p2.txt),
+    // or with --check compares the moves found against breadth-first distances for random 3-by-3
+    // boards and against Solver's A* for random walks on 4-by-4 boards
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--check")) {
+            Map<Long, Integer> distances = PackedBoard.distancesFromGoal(3);
+            Random random = new Random(42);
+            int checked = 0;
+            while (checked < 300) {
+                Board board = Solver.randomBoard(3, random);
+                Integer distance = distances.get(new PackedBoard(board).tiles());
+                if (distance == null)
+                    continue; // cannot reach the goal
+                check(board, distance);
+                checked++;
+            }
+            System.out.println(checked + " random 3-by-3 boards: IDA* matches breadth-first search");
+            int walks = 50;
+            for (int walk = 0; walk < walks; walk++) {
+                Board board = Solver.randomWalk(4, 40, random);
+                check(board, new Solver(board).moves());
+            }
+            System.out.println(walks + " 40-slide random walks on 4-by-4 boards: IDA* matches A*");
+            return;
+        }
+
+        In in = new In((args.length > 0) ? args[0] : "eight_puzzle/puzzle_text_files/p2.txt");
+        int n = in.readInt();
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                tiles[i][j] = in.readInt();
+        Board initial = new Board(tiles);
+
+        IDAStarSolver solver = new IDAStarSolver(initial);
+
+        if (!solver.isSolvable())
+            StdOut.println("No solution possible");
+        else {
+            StdOut.println("Minimum number of moves = " + solver.moves());
+            for (Board board : solver.solution())
+                StdOut.println(board);
+        }
+    }
+
+    // IDA* must find a valid solution of exactly the given number of moves
+    private static void check(Board board, int moves) {
+        IDAStarSolver solver = new IDAStarSolver(board);
+        if (solver.moves() != moves || !Solver.isSolution(board, solver.solution(), moves))
+            throw new IllegalStateException("not a shortest solution (" + solver.moves()
+                    + " moves, not " + moves + ") for\n" + board);
+    }
+
+}
\ No newline at end of file
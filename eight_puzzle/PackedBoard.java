@@ -0,0 +1,249 @@
+package eight_puzzle;
+
+import edu.princeton.cs.algs4.Stack;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+// A board of dimension up to 4 packed into one long, 4 bits per tile: the tile at index i (row-major,
+// 0 the blank) is bits [4i, 4i + 4). Nine tiles need 36 bits, so 3-by-3 boards use a long too.
+//
+// Sliding a tile into the blank is two xors, as the blank's nibble is zero, and the blank's index can
+// be found in O(1) from the packed value alone. The static methods work on raw packed values, so a
+// search can expand states without allocating anything - Solver expands boards up to 4-by-4 this
+// way, and Board's key is the same packing; the instance methods mirror Board's API.
+public final class PackedBoard {
+
+    public static final int MAX_DIMENSION = 4;
+
+    private static final long NIBBLE_LOW_BITS = 0x1111111111111111L;
+
+    private final long tiles;
+    private final int n;
+    private final int blank; // index of the blank tile, cached
+
+    // pack a board of dimension at most MAX_DIMENSION
+    public PackedBoard(Board board) {
+        if (board == null) throw new IllegalArgumentException("board cannot be null");
+        if (board.dimension() > MAX_DIMENSION)
+            throw new IllegalArgumentException("PackedBoard holds boards of dimension up to " + MAX_DIMENSION);
+        n = board.dimension();
+        long packed = 0;
+        for (int i = 0; i < n * n; i++)
+            packed |= nibble(i, board.tileAt(i));
+        tiles = packed;
+        blank = blankIndex(packed, n);
+    }
+
+    private PackedBoard(long tiles, int n, int blank) {
+        this.tiles = tiles;
+        this.n = n;
+        this.blank = blank;
+    }
+
+    // the equivalent Board
+    public Board toBoard() {
+        return toBoard(tiles, n);
+    }
+
+    public int dimension() {
+        return n;
+    }
+
+    // the packed tiles
+    public long tiles() {
+        return tiles;
+    }
+
+    // index of the blank tile
+    public int blankIndex() {
+        return blank;
+    }
+
+    // tile at row-major index
+    public int tileAt(int index) {
+        if (index < 0 || index >= n * n) throw new IndexOutOfBoundsException("Index '" + index + "' out of bounds");
+        return tileAt(tiles, index);
+    }
+
+    // number of tiles out of place
+    public int hamming() {
+        int count = 0;
+        for (int i = 0; i < n * n; i++) {
+            int tile = tileAt(tiles, i);
+            if (tile != 0 && tile != i + 1)
+                count++;
+        }
+        return count;
+    }
+
+    // sum of Manhattan distances between tiles and goal
+    public int manhattan() {
+        return manhattan(tiles, n);
+    }
+
+    // is this board the goal board?
+    public boolean isGoal() {
+        return tiles == goal(n);
+    }
+
+    // all neighboring boards - each a new PackedBoard, but with no arrays copied
+    public Iterable<PackedBoard> neighbors() {
+        Stack<PackedBoard> neighbours = new Stack<>();
+        long[] states = new long[4];
+        int count = neighbours(tiles, n, blank, states);
+        for (int i = 0; i < count; i++)
+            neighbours.push(new PackedBoard(states[i], n, blankIndex(states[i], n)));
+        return neighbours;
+    }
+
+    // a board that is obtained by exchanging any pair of tiles (the same pair Board.twin picks)
+    public PackedBoard twin() {
+        int first = (tileAt(tiles, 0) != 0 && tileAt(tiles, 1) != 0) ? 0 : n;
+        long a = tileAt(tiles, first);
+        long b = tileAt(tiles, first + 1);
+        long swapped = tiles ^ ((a ^ b) << (4 * first)) ^ ((a ^ b) << (4 * (first + 1)));
+        return new PackedBoard(swapped, n, blank);
+    }
+
+    // does this board equal y?
+    public boolean equals(Object y) {
+        if (y == this)
+            return true;
+        if (y == null || y.getClass() != this.getClass())
+            return false;
+        PackedBoard that = (PackedBoard) y;
+        return this.n == that.n && this.tiles == that.tiles;
+    }
+
+    public int hashCode() {
+        return Long.hashCode(tiles * 0x9E3779B97F4A7C15L);
+    }
+
+    // string representation of this board, as Board prints it
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        str.append(n + "\n");
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++)
+                str.append(" " + tileAt(tiles, (i * n) + j));
+            str.append("\n");
+        }
+        return str.toString();
+    }
+
+    // tile at index of a packed board
+    static int tileAt(long tiles, int index) {
+        return (int) (tiles >>> (4 * index)) & 0xF;
+    }
+
+    // the bits tile contributes to a packed board when it sits at index (none for the blank)
+    static long nibble(int index, int tile) {
+        return ((long) tile) << (4 * index);
+    }
+
+    // the Board a packed n-by-n board stands for
+    static Board toBoard(long tiles, int n) {
+        int[][] grid = new int[n][n];
+        for (int i = 0; i < n * n; i++)
+            grid[i / n][i % n] = tileAt(tiles, i);
+        return new Board(grid);
+    }
+
+    // index of the blank in a packed n-by-n board: the lowest nibble whose four bits are all zero
+    static int blankIndex(long tiles, int n) {
+        long any = tiles | (tiles >>> 1);
+        any |= any >>> 2; // bit 0 of each nibble is now the OR of that nibble's bits
+        long used = (n == 4) ? -1L : (1L << (4 * n * n)) - 1;
+        return Long.numberOfTrailingZeros(~any & NIBBLE_LOW_BITS & used) >>> 2;
+    }
+
+    // the packed board with the tile at index slid into the blank (which must be adjacent)
+    static long slide(long tiles, int blank, int index) {
+        long tile = (tiles >>> (4 * index)) & 0xF;
+        return tiles ^ (tile << (4 * index)) ^ (tile << (4 * blank));
+    }
+
+    // write the packed neighbours of a board into out (length at least 4), returning how many
+    static int neighbours(long tiles, int n, int blank, long[] out) {
+        int count = 0;
+        int row = blank / n;
+        int col = blank % n;
+        if (row > 0)
+            out[count++] = slide(tiles, blank, blank - n);
+        if (row < n - 1)
+            out[count++] = slide(tiles, blank, blank + n);
+        if (col > 0)
+            out[count++] = slide(tiles, blank, blank - 1);
+        if (col < n - 1)
+            out[count++] = slide(tiles, blank, blank + 1);
+        return count;
+    }
+
+    // sum of Manhattan distances of a packed board
+    static int manhattan(long tiles, int n) {
+        int sum = 0;
+        for (int i = 0; i < n * n; i++) {
+            int tile = tileAt(tiles, i);
+            if (tile != 0)
+                sum += distance(tile, i, n);
+        }
+        return sum;
+    }
+
+    // Manhattan distance of (non-blank) tile at index from its goal position
+    static int distance(int tile, int index, int n) {
+        return Math.abs((tile - 1) / n - index / n) + Math.abs((tile - 1) % n - index % n);
+    }
+
+    // the packed goal board of dimension n
+    static long goal(int n) {
+        long packed = 0;
+        for (int i = 0; i < (n * n) - 1; i++)
+            packed |= nibble(i, i + 1);
+        return packed;
+    }
+
+    // distance from the goal of every board of dimension n (at most 3) that can reach it, by breadth-first
+    // search over packed boards - an exact reference for test clients
+    static Map<Long, Integer> distancesFromGoal(int n) {
+        if (n < 1 || n > 3) throw new IllegalArgumentException("distancesFromGoal is limited to dimension 3");
+        Map<Long, Integer> distances = new HashMap<>();
+        ArrayDeque<Long> queue = new ArrayDeque<>();
+        long[] neighbours = new long[4];
+        distances.put(goal(n), 0);
+        queue.add(goal(n));
+        while (!queue.isEmpty()) {
+            long tiles = queue.remove();
+            int next = distances.get(tiles) + 1;
+            int count = neighbours(tiles, n, blankIndex(tiles, n), neighbours);
+            for (int i = 0; i < count; i++) {
+                if (!distances.containsKey(neighbours[i])) {
+                    distances.put(neighbours[i], next);
+                    queue.add(neighbours[i]);
+                }
+            }
+        }
+        return distances;
+    }
+
+    // test client: round trips a board and compares it and its neighbours with Board's
+    public static void main(String[] args) {
+        Board board = new Board(new int[][] {{5, 1, 3, 4}, {9, 2, 6, 8}, {13, 0, 7, 11}, {14, 10, 15, 12}});
+        PackedBoard packed = new PackedBoard(board);
+
+        System.out.println(packed);
+        System.out.println("round trip equal: " + packed.toBoard().equals(board));
+        System.out.println("hamming " + packed.hamming() + " = " + board.hamming()
+                + ", manhattan " + packed.manhattan() + " = " + board.manhattan());
+        for (PackedBoard neighbour : packed.neighbors()) {
+            boolean found = false;
+            for (Board expected : board.neighbors())
+                found |= neighbour.toBoard().equals(expected);
+            System.out.println("neighbour with blank at " + neighbour.blankIndex() + " matches Board: " + found);
+        }
+        System.out.println("twin matches Board: " + packed.twin().toBoard().equals(board.twin()));
+    }
+
+}
\ No newline at end of file
@@ -5,19 +5,31 @@ import edu.princeton.cs.algs4.MinPQ;
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdOut;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 public class Solver {
 
+    // A search node holds either a Board or, for boards up to PackedBoard.MAX_DIMENSION, the packed
+    // tiles and blank index alone - so a 4-by-4 search allocates one Node per queued board rather than
+    // a Board and its tile array, and Boards are only built for the solution
     private class Node implements Comparable<Node> {
-        private final Board board;
+        private final Board board; // null when the board is packed
+        private final long tiles; // the packed board, or else the board's key
+        private final int blank;
         private final Node previousNode;
         private int numMoves;
         private final int manhattanValue;
 
         public Node(Board board, Node previousNode) {
             this.board = board;
+            this.tiles = board.key();
+            this.blank = -1;
             this.previousNode = previousNode;
 
-            this.manhattanValue = board.manhattan(); // get manhattan calc value for the passed in board
+            this.manhattanValue = board.manhattan(); // cached by the board, derived from its parent board in O(1)
 
             if (previousNode != null)
                 numMoves = previousNode.numMoves + 1;
@@ -25,6 +37,19 @@ public class Solver {
                 numMoves = 0;
         }
 
+        public Node(long tiles, int blank, int manhattanValue, Node previousNode) {
+            this.board = null;
+            this.tiles = tiles;
+            this.blank = blank;
+            this.previousNode = previousNode;
+            this.manhattanValue = manhattanValue;
+            this.numMoves = (previousNode != null) ? previousNode.numMoves + 1 : 0;
+        }
+
+        private Board board() {
+            return (board != null) ? board : PackedBoard.toBoard(tiles, n);
+        }
+
         @Override
         public int compareTo(Node that) {
             int priorityDifference = (this.manhattanValue + this.numMoves) - (that.manhattanValue + that.numMoves);
@@ -34,49 +59,81 @@ public class Solver {
         }
     }
 
-    private boolean isSolvable;
+    private final boolean isSolvable;
     private final Stack<Board> solutions;
+    private final int n;
 
     public Solver(Board initial) {
         boolean solutionNotFound;
         if (initial == null)
             throw new IllegalArgumentException("Cannot pass in a null board");
 
-        isSolvable = false;
         solutions = new Stack<>();
+        n = initial.dimension();
 
-        // create new min priority queue of search nodes
+        // unsolvable boards are known from their parity alone, so only solvable ones are searched
+        isSolvable = initial.hasSolvableParity();
+        if (!isSolvable)
+            return;
+
+        // create new min priority queue of search nodes, and a table of the fewest moves found to
+        // each board so far - a board is only queued again if reached in fewer moves, which also
+        // covers stepping straight back to the previous board
         MinPQ<Node> searchNodes = new MinPQ<>();
+        TranspositionTable bestMoves = new TranspositionTable();
 
-        // add initial board state and a twin board state to this min PQ
-        searchNodes.insert(new Node(initial, null));
-        searchNodes.insert(new Node(initial.twin(), null));
+        // add initial board state to this min PQ, packed if it fits in a long
+        boolean packed = n <= PackedBoard.MAX_DIMENSION;
+        long goal = packed ? PackedBoard.goal(n) : 0;
+        long[] states = new long[4];
+        if (packed)
+            searchNodes.insert(new Node(initial.key(), PackedBoard.blankIndex(initial.key(), n), initial.manhattan(), null));
+        else
+            searchNodes.insert(new Node(initial, null));
+        bestMoves.offer(initial.key(), 0);
 
         // check to see if initial board is goal
-        solutionNotFound = !searchNodes.min().board.isGoal();
+        solutionNotFound = !isGoal(searchNodes.min(), packed, goal);
         // find a solution by exploring further board possibilities
         while (solutionNotFound) {
             Node searchNode = searchNodes.delMin(); // take the front node to explore
-            // for each neighbouring board of the current search node:
-            //  if the previous nodes board is not the current neighbouring board, explore deeper
-            for (Board neighbouringBoard : searchNode.board.neighbors())
-                if (searchNode.previousNode == null || (searchNode.previousNode!= null && !searchNode.previousNode.board.equals(neighbouringBoard)))
-                    searchNodes.insert(new Node(neighbouringBoard, searchNode));
+            // skip nodes superseded by a shorter path to the same board
+            if (searchNode.numMoves <= bestMoves.bestMoves(searchNode.tiles)) {
+                // queue each neighbouring board not already reached in as few moves
+                if (packed) {
+                    int count = PackedBoard.neighbours(searchNode.tiles, n, searchNode.blank, states);
+                    for (int i = 0; i < count; i++) {
+                        if (bestMoves.offer(states[i], searchNode.numMoves + 1)) {
+                            // only the tile now where the blank was has moved
+                            int blank = PackedBoard.blankIndex(states[i], n);
+                            int tile = PackedBoard.tileAt(states[i], searchNode.blank);
+                            int manhattan = searchNode.manhattanValue + PackedBoard.distance(tile, searchNode.blank, n)
+                                    - PackedBoard.distance(tile, blank, n);
+                            searchNodes.insert(new Node(states[i], blank, manhattan, searchNode));
+                        }
+                    }
+                } else {
+                    for (Board neighbouringBoard : searchNode.board.neighbors())
+                        if (bestMoves.offer(neighbouringBoard.key(), searchNode.numMoves + 1))
+                            searchNodes.insert(new Node(neighbouringBoard, searchNode));
+                }
+            }
 
-            solutionNotFound = !searchNodes.min().board.isGoal();
+            solutionNotFound = !isGoal(searchNodes.min(), packed, goal);
         }
 
         // retrieve solution
         Node currentNode = searchNodes.min();
         // backtrack until we get to the first node
         while (currentNode.previousNode != null) {
-            solutions.push(currentNode.board);
+            solutions.push(currentNode.board());
             currentNode = currentNode.previousNode;
         }
-        solutions.push(currentNode.board);
+        solutions.push(initial);
+    }
 
-        if (currentNode.board.equals(initial))
-            isSolvable = true;
+    private static boolean isGoal(Node node, boolean packed, long goal) {
+        return packed ? node.tiles == goal : node.board.isGoal();
     }
 
     public boolean isSolvable() {
@@ -95,7 +152,92 @@ public class Solver {
         return null;
     }
 
+    // a board of dimension n with its tiles in uniformly random order, for test clients
+    static Board randomBoard(int n, Random random) {
+        int[][] tiles = new int[n][n];
+        int[] order = new int[n * n];
+        for (int i = 0; i < order.length; i++) {
+            int j = random.nextInt(i + 1); // inside-out Fisher-Yates
+            order[i] = order[j];
+            order[j] = i;
+        }
+        for (int i = 0; i < order.length; i++)
+            tiles[i / n][i % n] = order[i];
+        return new Board(tiles);
+    }
+
+    // the board reached by sliding a random tile (never straight back) the given number of times, for
+    // test clients
+    static Board randomWalk(int n, int moves, Random random) {
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < (n * n) - 1; i++)
+            tiles[i / n][i % n] = i + 1;
+        Board current = new Board(tiles);
+        Board previous = null;
+        for (int move = 0; move < moves; move++) {
+            List<Board> choices = new ArrayList<>();
+            for (Board neighbour : current.neighbors())
+                if (!neighbour.equals(previous))
+                    choices.add(neighbour);
+            previous = current;
+            current = choices.get(random.nextInt(choices.size()));
+        }
+        return current;
+    }
+
+    // does solution run from initial to the goal in the given number of single slides? for test clients
+    static boolean isSolution(Board initial, Iterable<Board> solution, int moves) {
+        Board previous = null;
+        int boards = 0;
+        for (Board board : solution) {
+            if (previous == null ? !board.equals(initial) : !isNeighbour(previous, board))
+                return false;
+            previous = board;
+            boards++;
+        }
+        return previous != null && previous.isGoal() && boards == moves + 1;
+    }
+
+    private static boolean isNeighbour(Board board, Board other) {
+        for (Board neighbour : board.neighbors())
+            if (neighbour.equals(other))
+                return true;
+        return false;
+    }
+
+    // test client: solves eight_puzzle/puzzle_text_files/p2.txt, or with --check compares the moves
+    // found for random 3-by-3 boards against breadth-first distances, and for 5-by-5 ones against IDA*
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--check")) {
+            Map<Long, Integer> distances = PackedBoard.distancesFromGoal(3);
+            Random random = new Random(42);
+            int checked = 0;
+            while (checked < 300) {
+                Board board = randomBoard(3, random);
+                Integer distance = distances.get(new PackedBoard(board).tiles());
+                if (distance == null)
+                    continue; // cannot reach the goal
+                Solver solver = new Solver(board);
+                if (solver.moves() != distance || !isSolution(board, solver.solution(), distance))
+                    throw new IllegalStateException("not a shortest solution (" + solver.moves()
+                            + " moves, not " + distance + ") for\n" + board);
+                checked++;
+            }
+            System.out.println(checked + " random 3-by-3 boards: every solution is valid and as short as breadth-first search's");
+            // boards too big to pack take the Board-based search; IDA* finds shortest solutions too
+            int walks = 20;
+            for (int walk = 0; walk < walks; walk++) {
+                Board board = randomWalk(5, 24, random);
+                Solver solver = new Solver(board);
+                int moves = new IDAStarSolver(board).moves();
+                if (solver.moves() != moves || !isSolution(board, solver.solution(), moves))
+                    throw new IllegalStateException("not a shortest solution (" + solver.moves()
+                            + " moves, not " + moves + ") for\n" + board);
+            }
+            System.out.println(walks + " 24-slide random walks on 5-by-5 boards: every solution is valid and as short as IDA*'s");
+            return;
+        }
+
         // create initial board from file
         In in = new In("eight_puzzle/puzzle_text_files/p2.txt");
         int n = in.readInt();
@@ -0,0 +1,103 @@
+package eight_puzzle;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// The fewest moves found so far to each board reached by a search, keyed on Board.key(), in
+// open-addressing long/int arrays rather than a HashMap of boxed entries (about 24 bytes a board at
+// the worst load). Moves are stored plus one, so a zero means an empty slot.
+class TranspositionTable {
+
+    private long[] keys;
+    private int[] moves;
+    private int size;
+
+    // create an empty table
+    public TranspositionTable() {
+        keys = new long[1024];
+        moves = new int[1024];
+    }
+
+    // record that key's board was reached in the given number of moves, if that is fewer than any
+    // earlier visit (or the first); returns whether it was
+    public boolean offer(long key, int numMoves) {
+        int slot = slotOf(key);
+        if (moves[slot] != 0) {
+            if (moves[slot] <= numMoves + 1)
+                return false;
+            moves[slot] = numMoves + 1;
+            return true;
+        }
+        keys[slot] = key;
+        moves[slot] = numMoves + 1;
+        if (++size > keys.length / 2) // keep at most half full, so probes stay short
+            grow();
+        return true;
+    }
+
+    // fewest moves recorded for key's board, or Integer.MAX_VALUE if it has not been reached
+    public int bestMoves(long key) {
+        int slot = slotOf(key);
+        return (moves[slot] == 0) ? Integer.MAX_VALUE : moves[slot] - 1;
+    }
+
+    // number of boards recorded
+    public int size() {
+        return size;
+    }
+
+    // key's slot, or the empty slot where it would go
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (moves[slot] != 0 && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldMoves = moves;
+        keys = new long[2 * oldKeys.length];
+        moves = new int[2 * oldMoves.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldMoves[i] != 0) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                moves[slot] = oldMoves[i];
+            }
+        }
+    }
+
+    // packed keys differ mostly in their low nibbles, so mix every bit into the slot index
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // test client: random offers checked against a HashMap, with packed-board-like keys differing in a
+    // few nibbles, through several grows
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        TranspositionTable table = new TranspositionTable();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            long key = ((long) random.nextInt(200_000)) << (4 * random.nextInt(4));
+            int numMoves = random.nextInt(80);
+            Integer best = expected.get(key);
+            boolean improves = best == null || numMoves < best;
+            if (improves)
+                expected.put(key, numMoves);
+            if (table.offer(key, numMoves) != improves)
+                throw new IllegalStateException("offer(" + key + ", " + numMoves + ") returned " + !improves);
+        }
+        for (Map.Entry<Long, Integer> entry : expected.entrySet())
+            if (table.bestMoves(entry.getKey()) != entry.getValue())
+                throw new IllegalStateException("bestMoves(" + entry.getKey() + ") differs");
+        if (table.size() != expected.size() || table.bestMoves(-1) != Integer.MAX_VALUE)
+            throw new IllegalStateException("size or absent key differs");
+        System.out.println("1,000,000 offers over " + table.size() + " keys match a HashMap");
+    }
+
+}
\ No newline at end of file
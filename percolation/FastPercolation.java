@@ -0,0 +1,233 @@
+package percolation;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+// Same API as Percolation, but with all state in two flat primitive arrays:
+//  - open sites are a bitset over an (n+2)-by-(n+2) grid, whose border is never opened,
+//    so a neighbour can be tested without checking it is within the grid
+//  - the union-find is a StatusUnionFind over the same grid, whose roots record whether their
+//    cluster touches the top and/or bottom row, so there are no virtual connectors, isFull()
+//    has no backwash and percolates() is a field read
+class FastPercolation implements PercolationSystem {
+
+    static final int MAX_DIMENSION = 46338; // largest n with (n+2)^2 sites indexable by an int
+
+    private final int dimension;
+    private final int width; // n + 2 - sites in one padded row
+    private final long[] open;
+    private final StatusUnionFind uf;
+    private int openSiteCount;
+    private boolean percolates;
+
+    // create n-by-n grid, with all sites blocked
+    public FastPercolation(int n) {
+        if (n <= 0) throw new IllegalArgumentException("n cannot be zero or less");
+        if (n > MAX_DIMENSION) throw new IllegalArgumentException("n cannot be greater than " + MAX_DIMENSION);
+
+        dimension = n;
+        width = n + 2;
+
+        int paddedSites = width * width;
+        open = new long[(paddedSites + 63) >>> 6];
+        uf = new StatusUnionFind(paddedSites);
+    }
+
+    // open site (row, col) if it is not open already
+    public void open(int row, int col) {
+        checkIfInBounds(row, col);
+        int site = (row * width) + col;
+        if (isOpenSite(site))
+            return; // already open, so already joined to its open neighbours
+
+        openSite(site, row);
+        openSiteCount++;
+    }
+
+    // open every site (rows[i], cols[i]) not open already; the batch is bucketed by row first
+    // (a counting sort, O(batch + n)), so the neighbour probes and unions walk the arrays in order
+    public void openAll(int[] rows, int[] cols) {
+        if (rows == null || cols == null) throw new IllegalArgumentException("rows and cols cannot be null");
+        if (rows.length != cols.length) throw new IllegalArgumentException("rows and cols must be the same length");
+
+        int[] rowStarts = new int[dimension + 2];
+        for (int i = 0; i < rows.length; i++) {
+            checkIfInBounds(rows[i], cols[i]);
+            rowStarts[rows[i] + 1]++;
+        }
+        for (int row = 1; row <= dimension; row++)
+            rowStarts[row + 1] += rowStarts[row];
+        int[] sites = new int[rows.length];
+        for (int i = 0; i < rows.length; i++)
+            sites[rowStarts[rows[i]]++] = (rows[i] * width) + cols[i];
+
+        int opened = 0;
+        for (int site : sites) {
+            if (!isOpenSite(site)) {
+                openSite(site, site / width);
+                opened++;
+            }
+        }
+        openSiteCount += opened;
+    }
+
+    // open every site whose bit is set in mask, where site (row, col) is bit (row - 1) * n + (col - 1)
+    public void openMask(BitSet mask) {
+        if (mask == null) throw new IllegalArgumentException("mask cannot be null");
+        if (mask.length() > dimension * dimension)
+            throw new IndexOutOfBoundsException("Mask bit '" + (mask.length() - 1) + "' index out of bounds");
+
+        // set bits come out in ascending, so already row-major, order
+        int opened = 0;
+        for (int bit = mask.nextSetBit(0); bit >= 0; bit = mask.nextSetBit(bit + 1)) {
+            int row = (bit / dimension) + 1;
+            int site = (row * width) + (bit % dimension) + 1;
+            if (!isOpenSite(site)) {
+                openSite(site, row);
+                opened++;
+            }
+        }
+        openSiteCount += opened;
+    }
+
+    // open a closed site and join it to its open neighbours
+    private void openSite(int site, int row) {
+        open[site >>> 6] |= 1L << site;
+
+        int status = 0;
+        if (row == 1)
+            status |= StatusUnionFind.CONNECTED_TOP;
+        if (row == dimension)
+            status |= StatusUnionFind.CONNECTED_BOTTOM;
+        uf.reset(site, status); // a closed site is always a lone root of rank 0
+        if (status == StatusUnionFind.PERCOLATING)
+            percolates = true; // a 1-by-1 grid
+
+        // border sites are never open, so no bounds checks are needed here
+        if (isOpenSite(site - width))
+            union(site, site - width);
+        if (isOpenSite(site + width))
+            union(site, site + width);
+        if (isOpenSite(site - 1))
+            union(site, site - 1);
+        if (isOpenSite(site + 1))
+            union(site, site + 1);
+    }
+
+    // join two open sites; the system percolates once a cluster touches both the top and the bottom
+    private void union(int site, int otherSite) {
+        if (uf.union(site, otherSite) == StatusUnionFind.PERCOLATING)
+            percolates = true;
+    }
+
+    // is site (row, col) open?
+    public boolean isOpen(int row, int col) {
+        checkIfInBounds(row, col);
+        return isOpenSite((row * width) + col);
+    }
+
+    // is site (row, col) full?
+    public boolean isFull(int row, int col) {
+        checkIfInBounds(row, col);
+        int site = (row * width) + col;
+        return isOpenSite(site) && (uf.status(site) & StatusUnionFind.CONNECTED_TOP) != 0;
+    }
+
+    // number of open sites
+    public int numberOfOpenSites() {
+        return openSiteCount;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    private boolean isOpenSite(int site) {
+        return (open[site >>> 6] & (1L << site)) != 0;
+    }
+
+    private void checkIfInBounds(int row, int col) {
+        if (row <= 0 || row > dimension) throw new IndexOutOfBoundsException("Row '" + row + "' index out of bounds");
+        if (col <= 0 || col > dimension) throw new IndexOutOfBoundsException("Column '" + col + "' index out of bounds");
+    }
+
+    // before/after comparison with Percolation: ns per open() and heap bytes per site,
+    // then per-site open() against openAll() for bulk loads of random sites
+    public static void main(String[] args) {
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 4096;
+        int[] order = randomOrder(n, new SplittableRandom(42));
+
+        for (int round = 0; round < 3; round++) { // the first rounds warm up the JIT
+            System.gc();
+            long before = usedMemory();
+            Percolation percolation = new Percolation(n);
+            long percolationBytes = usedMemory() - before;
+            long percolationNanos = timeOpens(percolation, n, order);
+
+            System.gc();
+            before = usedMemory();
+            FastPercolation fastPercolation = new FastPercolation(n);
+            long fastBytes = usedMemory() - before;
+            long fastNanos = timeOpens(fastPercolation, n, order);
+
+            double sites = (double) n * n;
+            System.out.printf("round %d: Percolation %.1f ns/open %.2f bytes/site | FastPercolation %.1f ns/open %.2f bytes/site%n",
+                    round, percolationNanos / sites, percolationBytes / sites, fastNanos / sites, fastBytes / sites);
+        }
+
+        // bulk loads: the random order in 16 batches of n * n / 16 sites
+        int batches = 16;
+        int batchSize = order.length / batches;
+        int[][] rowBatches = new int[batches][batchSize];
+        int[][] colBatches = new int[batches][batchSize];
+        for (int i = 0; i < batches * batchSize; i++) {
+            rowBatches[i / batchSize][i % batchSize] = (order[i] / n) + 1;
+            colBatches[i / batchSize][i % batchSize] = (order[i] % n) + 1;
+        }
+        for (int round = 0; round < 3; round++) {
+            FastPercolation perSite = new FastPercolation(n);
+            long start = System.nanoTime();
+            for (int batch = 0; batch < batches; batch++)
+                for (int i = 0; i < batchSize; i++)
+                    perSite.open(rowBatches[batch][i], colBatches[batch][i]);
+            long perSiteNanos = System.nanoTime() - start;
+
+            FastPercolation batched = new FastPercolation(n);
+            start = System.nanoTime();
+            for (int batch = 0; batch < batches; batch++)
+                batched.openAll(rowBatches[batch], colBatches[batch]);
+            long batchedNanos = System.nanoTime() - start;
+
+            double sites = (double) batches * batchSize;
+            System.out.printf("round %d: open() %.1f ns/site | openAll() %.1f ns/site%n",
+                    round, perSiteNanos / sites, batchedNanos / sites);
+        }
+    }
+
+    private static long timeOpens(PercolationSystem system, int n, int[] order) {
+        long start = System.nanoTime();
+        for (int site : order)
+            system.open((site / n) + 1, (site % n) + 1);
+        return System.nanoTime() - start;
+    }
+
+    private static int[] randomOrder(int n, SplittableRandom random) {
+        int[] order = new int[n * n];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+        return order;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,103 @@
+package percolation;
+
+import java.util.Arrays;
+
+// Decides whether an n-wide grid percolates by streaming it in one row at a time, top to bottom.
+// Only the most recent row (the frontier) is kept: each of its open sites carries a cluster label
+// in [0, n) and a flag saying whether that cluster reaches the top row, so memory is O(n) whatever
+// the number of rows.
+class FrontierUnionFind {
+
+    private static final int CLOSED = -1;
+
+    private final int width;
+    private final int[] frontier; // label of each site in the last row added, or CLOSED
+    private final boolean[] labelReachesTop; // indexed by frontier label
+    private final int[] parent; // union-find over the last row's labels [0, n) and the new row's sites [n, 2n)
+    private final boolean[] reachesTop; // indexed as parent
+    private final int[] relabel; // union-find root -> label in the new frontier, valid when relabelRow matches
+    private final int[] relabelRow;
+    private int labels; // number of labels in use on the frontier
+    private int rowsAdded;
+
+    public FrontierUnionFind(int n) {
+        if (n <= 0) throw new IllegalArgumentException("n cannot be zero or less");
+        width = n;
+        frontier = new int[n];
+        labelReachesTop = new boolean[n];
+        parent = new int[2 * n];
+        reachesTop = new boolean[2 * n];
+        relabel = new int[2 * n];
+        relabelRow = new int[2 * n];
+        reset();
+    }
+
+    // forget all rows added so far
+    public void reset() {
+        Arrays.fill(frontier, CLOSED);
+        Arrays.fill(relabelRow, CLOSED);
+        labels = 0;
+        rowsAdded = 0;
+    }
+
+    // add the next row down, where open[col] says whether site col (0 based) is open;
+    // returns whether any site in this row is connected to the top row
+    public boolean addRow(boolean[] open) {
+        for (int label = 0; label < labels; label++) {
+            parent[label] = label;
+            reachesTop[label] = labelReachesTop[label];
+        }
+
+        for (int col = 0; col < width; col++) {
+            if (!open[col])
+                continue;
+            int site = width + col;
+            parent[site] = site;
+            reachesTop[site] = (rowsAdded == 0);
+            if (col > 0 && open[col - 1])
+                union(site, site - 1);
+            if (frontier[col] != CLOSED)
+                union(site, frontier[col]);
+        }
+
+        // compact the new row's clusters back into labels [0, n)
+        boolean anyReachesTop = false;
+        labels = 0;
+        for (int col = 0; col < width; col++) {
+            if (!open[col]) {
+                frontier[col] = CLOSED;
+                continue;
+            }
+            int root = find(width + col);
+            if (relabelRow[root] != rowsAdded) {
+                relabelRow[root] = rowsAdded;
+                relabel[root] = labels;
+                labelReachesTop[labels] = reachesTop[root];
+                anyReachesTop |= reachesTop[root];
+                labels++;
+            }
+            frontier[col] = relabel[root];
+        }
+
+        rowsAdded++;
+        return anyReachesTop;
+    }
+
+    private int find(int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private void union(int node, int otherNode) {
+        int root = find(node);
+        int otherRoot = find(otherNode);
+        if (root == otherRoot)
+            return;
+        parent[otherRoot] = root;
+        reachesTop[root] |= reachesTop[otherRoot];
+    }
+
+}
@@ -0,0 +1,120 @@
+package percolation;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Finds the threshold with no union-find at all. Give every site its opening time in a random
+// order; the grid first percolates once every site on some top-to-bottom path is open, i.e. at
+// the smallest, over all such paths, of the latest opening time on the path. Invasion percolation
+// finds that minimax path directly: grow a cluster down from the whole top row, always taking the
+// frontier site that opens earliest, and stop when a bottom row site is taken - the latest time
+// taken so far is the answer. Opening times are drawn lazily, by the same sparse Fisher-Yates
+// steps as PermutationTrial, only for sites that reach the frontier, so each such site costs one
+// heap insert and at most one removal instead of an open() with up to four unions and a
+// percolates() check.
+class InvasionTrial implements TrialStrategy {
+
+    public double threshold(int n, SplittableRandom random) {
+        int sites = n * n;
+        // unusedTimes[i] holds time + 1, or 0 while slot i still holds its own time i,
+        // so the array never needs filling with the identity permutation up front
+        int[] unusedTimes = new int[sites];
+        int remaining = sites;
+        long[] reached = new long[(sites + 63) >>> 6]; // sites given a time and put on the frontier
+        Frontier frontier = new Frontier(4 * n);
+
+        for (int site = 0; site < n; site++) {
+            remaining = drawTime(unusedTimes, remaining, random, site, frontier);
+            reached[site >>> 6] |= 1L << site;
+        }
+
+        int latest = -1;
+        while (true) {
+            long entry = frontier.removeEarliest();
+            int time = (int) (entry >>> 32);
+            int site = (int) entry;
+            latest = Math.max(latest, time);
+            int row = site / n;
+            int col = site % n;
+            if (row == n - 1)
+                return (double) (latest + 1) / sites; // opening times are 0 based
+
+            if (col > 0)
+                remaining = reach(site - 1, reached, unusedTimes, remaining, random, frontier);
+            if (col < n - 1)
+                remaining = reach(site + 1, reached, unusedTimes, remaining, random, frontier);
+            remaining = reach(site + n, reached, unusedTimes, remaining, random, frontier);
+            if (row > 0)
+                remaining = reach(site - n, reached, unusedTimes, remaining, random, frontier);
+        }
+    }
+
+    // give site an opening time and add it to the frontier, if it has not been reached already;
+    // returns the number of times still unused
+    private static int reach(int site, long[] reached, int[] unusedTimes, int remaining,
+                             SplittableRandom random, Frontier frontier) {
+        if ((reached[site >>> 6] & (1L << site)) != 0)
+            return remaining;
+        reached[site >>> 6] |= 1L << site;
+        return drawTime(unusedTimes, remaining, random, site, frontier);
+    }
+
+    // swap a random unused time to the end of the unused range and give it to site
+    private static int drawTime(int[] unusedTimes, int remaining, SplittableRandom random, int site, Frontier frontier) {
+        int pick = random.nextInt(remaining);
+        remaining--;
+        int time = timeAt(unusedTimes, pick);
+        unusedTimes[pick] = timeAt(unusedTimes, remaining) + 1;
+        frontier.add(((long) time << 32) | site);
+        return remaining;
+    }
+
+    private static int timeAt(int[] unusedTimes, int index) {
+        return (unusedTimes[index] == 0) ? index : unusedTimes[index] - 1;
+    }
+
+    // binary min-heap of (time << 32 | site) entries, so the earliest time comes out first
+    private static class Frontier {
+
+        private long[] heap;
+        private int size;
+
+        Frontier(int capacity) {
+            heap = new long[capacity];
+        }
+
+        void add(long entry) {
+            if (size == heap.length)
+                heap = Arrays.copyOf(heap, 2 * size);
+            int child = size++;
+            while (child > 0) {
+                int parent = (child - 1) >>> 1;
+                if (heap[parent] <= entry)
+                    break;
+                heap[child] = heap[parent];
+                child = parent;
+            }
+            heap[child] = entry;
+        }
+
+        long removeEarliest() {
+            long earliest = heap[0];
+            long last = heap[--size];
+            int parent = 0;
+            while (true) {
+                int child = (2 * parent) + 1;
+                if (child >= size)
+                    break;
+                if (child + 1 < size && heap[child + 1] < heap[child])
+                    child++;
+                if (last <= heap[child])
+                    break;
+                heap[parent] = heap[child];
+                parent = child;
+            }
+            heap[parent] = last;
+            return earliest;
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package percolation;
+
+import java.util.SplittableRandom;
+
+// Threshold trials for grids whose sites cannot all be held in memory. Rather than storing an
+// opening order, every site gets a uniform random opening level in [0, 1) recomputed on demand by
+// hashing (trial seed, site index), so the site is open at level p exactly when its level is below
+// p. The critical level is then bisected with FrontierUnionFind sweeps, and the threshold is the
+// fraction of sites open at it. Heap use is O(n) for any n.
+class LargeGridTrial implements TrialStrategy {
+
+    private static final double EXPECTED_THRESHOLD = 0.5927; // site percolation threshold of the square lattice
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    public double threshold(int n, SplittableRandom random) {
+        long seed = random.nextLong();
+        long sites = (long) n * n;
+        FrontierUnionFind frontier = new FrontierUnionFind(n);
+        boolean[] row = new boolean[n];
+
+        // bracket the critical level around EXPECTED_THRESHOLD, whose spread shrinks like n^(-3/4)
+        double step = 1.0 / Math.pow(n, 0.75);
+        double lo;
+        double hi;
+        if (openCountIfPercolating(EXPECTED_THRESHOLD, seed, n, frontier, row) >= 0) {
+            hi = EXPECTED_THRESHOLD;
+            while (hi - step > 0 && openCountIfPercolating(hi - step, seed, n, frontier, row) >= 0) {
+                hi -= step;
+                step *= 2;
+            }
+            lo = Math.max(0, hi - step);
+        } else {
+            lo = EXPECTED_THRESHOLD;
+            while (lo + step < 1 && openCountIfPercolating(lo + step, seed, n, frontier, row) < 0) {
+                lo += step;
+                step *= 2;
+            }
+            hi = Math.min(1, lo + step);
+        }
+
+        // bisect until on average well under one site has its level between lo and hi
+        long openCount = openCountIfPercolating(hi, seed, n, frontier, row);
+        while ((hi - lo) * sites > 0.25) {
+            double middle = (lo + hi) / 2;
+            long count = openCountIfPercolating(middle, seed, n, frontier, row);
+            if (count >= 0) {
+                hi = middle;
+                openCount = count;
+            } else {
+                lo = middle;
+            }
+        }
+        return (double) openCount / sites;
+    }
+
+    // number of open sites if the grid percolates with sites below level open, otherwise -1
+    private static long openCountIfPercolating(double level, long seed, int n, FrontierUnionFind frontier, boolean[] row) {
+        long openCount = 0;
+        frontier.reset();
+        for (long rowStart = 0; rowStart < (long) n * n; rowStart += n) {
+            for (int col = 0; col < n; col++) {
+                row[col] = openingLevel(seed, rowStart + col) < level;
+                if (row[col])
+                    openCount++;
+            }
+            if (!frontier.addRow(row))
+                return -1;
+        }
+        return openCount;
+    }
+
+    // uniform level in [0, 1) for a site, from a SplitMix64 hash of (seed, site)
+    private static double openingLevel(long seed, long site) {
+        long z = seed + ((site + 1) * GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+}
@@ -0,0 +1,160 @@
+package percolation;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+// Percolation for grids too big for Percolation or FastPercolation (n up to 50,000 and beyond):
+//  - sites are indexed by long, so n * n never overflows
+//  - open sites live in an off-heap MappedBitSet, one bit per site
+//  - connectivity is never stored per site; percolates() streams the grid through a
+//    FrontierUnionFind, which only keeps the current row, and isFull() floods a second
+//    off-heap bitset - both are cached until the next open()
+// so the Java heap holds O(n) ints, plus isFull()'s flood fill stack (see fillFromTop).
+class LargePercolation implements Closeable {
+
+    private final int dimension;
+    private final Path directory;
+    private final MappedBitSet open;
+    private long openSiteCount;
+
+    private boolean percolates;
+    private boolean percolatesKnown;
+    private MappedBitSet full; // created on the first isFull() call
+    private boolean fullKnown;
+
+    // create n-by-n grid, with all sites blocked, mapped from a file in the temporary directory
+    public LargePercolation(int n) {
+        this(n, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    // create n-by-n grid, with all sites blocked, mapped from a file in directory
+    public LargePercolation(int n, Path directory) {
+        if (n <= 0) throw new IllegalArgumentException("n cannot be zero or less");
+        if (directory == null) throw new IllegalArgumentException("directory cannot be null");
+        dimension = n;
+        this.directory = directory;
+        open = new MappedBitSet((long) n * n, directory);
+        openSiteCount = 0;
+    }
+
+    // open site (row, col) if it is not open already
+    public void open(int row, int col) {
+        long site = siteIndex(row, col);
+        if (open.get(site))
+            return;
+        open.set(site);
+        openSiteCount++;
+        percolatesKnown = false;
+        fullKnown = false;
+    }
+
+    // is site (row, col) open?
+    public boolean isOpen(int row, int col) {
+        return open.get(siteIndex(row, col));
+    }
+
+    // is site (row, col) full? the first call after an open() takes O(n^2) time
+    public boolean isFull(int row, int col) {
+        long site = siteIndex(row, col);
+        if (!fullKnown) {
+            if (full == null)
+                full = new MappedBitSet(open.size(), directory);
+            fillFromTop();
+            fullKnown = true;
+        }
+        return full.get(site);
+    }
+
+    // number of open sites
+    public long numberOfOpenSites() {
+        return openSiteCount;
+    }
+
+    // does the system percolate? the first call after an open() takes O(n^2) time
+    public boolean percolates() {
+        if (!percolatesKnown) {
+            percolates = sweep();
+            percolatesKnown = true;
+        }
+        return percolates;
+    }
+
+    @Override
+    public void close() {
+        open.close();
+        if (full != null)
+            full.close();
+    }
+
+    // stream the rows top to bottom, stopping as soon as no site in a row connects to the top
+    private boolean sweep() {
+        FrontierUnionFind frontier = new FrontierUnionFind(dimension);
+        boolean[] row = new boolean[dimension];
+        for (long rowStart = 0; rowStart < open.size(); rowStart += dimension) {
+            for (int col = 0; col < dimension; col++)
+                row[col] = open.get(rowStart + col);
+            if (!frontier.addRow(row))
+                return false;
+        }
+        return true;
+    }
+
+    // Mark every open site connected to the top row in full with one scanline flood fill: each run of
+    // open sites is filled whole when first reached and pushed on an explicit stack, and popping it
+    // scans the rows above and below its columns for runs still to fill. Every run is filled and
+    // pushed once and every site is looked at from at most the runs above and below it, so this takes
+    // O(n^2) time. The stack holds one long per pending run - typically O(n), but at worst one per
+    // run of open sites in the grid.
+    private void fillFromTop() {
+        full.clear();
+        long[] stack = new long[64];
+        int size = 0;
+        for (int col = 0; col < dimension; col++) {
+            if (open.get(col) && !full.get(col)) {
+                if (size == stack.length)
+                    stack = Arrays.copyOf(stack, 2 * size);
+                stack[size++] = fillRun(0, col);
+            }
+        }
+        while (size > 0) {
+            long site = stack[--size];
+            long row = site / dimension;
+            int first = (int) (site % dimension);
+            int last = first;
+            while (last < dimension && open.get((row * dimension) + last))
+                last++;
+            for (long next = row - 1; next <= row + 1; next += 2) {
+                if (next < 0 || next >= dimension)
+                    continue;
+                long nextStart = next * dimension;
+                for (int col = first; col < last; col++) {
+                    if (open.get(nextStart + col) && !full.get(nextStart + col)) {
+                        if (size == stack.length)
+                            stack = Arrays.copyOf(stack, 2 * size);
+                        stack[size++] = fillRun(next, col);
+                    }
+                }
+            }
+        }
+    }
+
+    // fill the whole run of open sites through (row, col), returning the site index where it starts
+    private long fillRun(long row, int col) {
+        long rowStart = row * dimension;
+        int first = col;
+        while (first > 0 && open.get(rowStart + first - 1))
+            first--;
+        for (int i = first; i < dimension && open.get(rowStart + i); i++)
+            full.set(rowStart + i);
+        return rowStart + first;
+    }
+
+    private long siteIndex(int row, int col) {
+        if (row <= 0 || row > dimension) throw new IndexOutOfBoundsException("Row '" + row + "' index out of bounds");
+        if (col <= 0 || col > dimension) throw new IndexOutOfBoundsException("Column '" + col + "' index out of bounds");
+        return ((long) dimension * (row - 1)) + (col - 1); // as we store a row as successive bits
+    }
+
+}
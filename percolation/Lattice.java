@@ -0,0 +1,119 @@
+package percolation;
+
+// Geometry of a lattice for LatticePercolation. Sites sit in a padded array with one layer of
+// never-opened sites around the lattice, so every neighbour of a real site is just
+// paddedIndex + offset for each offset in a precomputed table - no bounds checks and no
+// branching on the kind of lattice. Layers run from the top (layer 1) to the bottom (layer n):
+// rows of a 2D lattice, planes of a 3D one.
+final class Lattice {
+
+    private final String name;
+    private final int dimension;
+    private final int sites;
+    private final int rowLength; // padded sites per row
+    private final int layerStride; // padded sites per layer
+    private final int firstSite; // padded index of site 0
+    private final int paddedSites;
+    private final int[] neighbourOffsets;
+
+    private Lattice(String name, int n, boolean threeDimensional, int[][] steps) {
+        if (n <= 0) throw new IllegalArgumentException("n cannot be zero or less");
+        long padded = threeDimensional ? (long) (n + 2) * (n + 2) * (n + 2) : (long) (n + 2) * (n + 2);
+        if (padded > Integer.MAX_VALUE) throw new IllegalArgumentException("n is too large for a " + name + " lattice");
+
+        this.name = name;
+        this.dimension = n;
+        this.sites = threeDimensional ? n * n * n : n * n;
+        this.rowLength = n + 2;
+        this.layerStride = threeDimensional ? (n + 2) * (n + 2) : n + 2;
+        this.firstSite = (threeDimensional ? layerStride : 0) + rowLength + 1; // past the border
+        this.paddedSites = (int) padded;
+
+        // each step is {layer, row, col} for 3D lattices and {row, col} for 2D ones
+        neighbourOffsets = new int[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            int[] step = steps[i];
+            if (threeDimensional)
+                neighbourOffsets[i] = (step[0] * layerStride) + (step[1] * rowLength) + step[2];
+            else
+                neighbourOffsets[i] = (step[0] * rowLength) + step[1];
+        }
+    }
+
+    // n-by-n square lattice, 4 neighbours (the lattice Percolation uses)
+    public static Lattice square(int n) {
+        return new Lattice("square", n, false, new int[][] {{-1, 0}, {1, 0}, {0, -1}, {0, 1}});
+    }
+
+    // n-by-n square lattice with diagonals, 8 neighbours (Moore neighbourhood)
+    public static Lattice moore(int n) {
+        return new Lattice("moore", n, false, new int[][] {
+                {-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}});
+    }
+
+    // n-by-n triangular lattice, 6 neighbours, drawn as a square grid with one diagonal; site
+    // percolation on it is percolation of the cells of a hexagonal tiling
+    public static Lattice triangular(int n) {
+        return new Lattice("triangular", n, false, new int[][] {
+                {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}});
+    }
+
+    // n-by-n-by-n simple cubic lattice, 6 neighbours
+    public static Lattice cubic(int n) {
+        return new Lattice("cubic", n, true, new int[][] {
+                {-1, 0, 0}, {1, 0, 0}, {0, -1, 0}, {0, 1, 0}, {0, 0, -1}, {0, 0, 1}});
+    }
+
+    // lattice of the given name ("square", "moore", "triangular" or "cubic") and size
+    public static Lattice named(String name, int n) {
+        if (name.equals("square"))
+            return square(n);
+        if (name.equals("moore"))
+            return moore(n);
+        if (name.equals("triangular"))
+            return triangular(n);
+        if (name.equals("cubic"))
+            return cubic(n);
+        throw new IllegalArgumentException("unknown lattice '" + name + "'");
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    // number of real sites
+    public int sites() {
+        return sites;
+    }
+
+    // size of the padded index space, border included
+    int paddedSites() {
+        return paddedSites;
+    }
+
+    // padded sites per layer, so paddedIndex / layerStride() is a site's layer
+    int layerStride() {
+        return layerStride;
+    }
+
+    // offsets from a padded index to each of its neighbours
+    int[] neighbourOffsets() {
+        return neighbourOffsets;
+    }
+
+    // padded index of real site (0 based, layer by layer then row major); one formula for 2D and 3D,
+    // as a 2D site's layer always comes out 0
+    int paddedIndex(int site) {
+        if (site < 0 || site >= sites) throw new IndexOutOfBoundsException("Site '" + site + "' index out of bounds");
+        int col = site % dimension;
+        int rest = site / dimension;
+        int row = rest % dimension;
+        int layer = rest / dimension;
+        return firstSite + (layer * layerStride) + (row * rowLength) + col;
+    }
+
+    public String toString() {
+        return name + " lattice, n = " + dimension;
+    }
+
+}
@@ -0,0 +1,82 @@
+package percolation;
+
+// FastPercolation's kernel - padded open-site bitset and a StatusUnionFind - generalised to any
+// Lattice. Sites are addressed by their 0 based index, and open() joins a site to its open
+// neighbours by walking the lattice's offset table.
+class LatticePercolation {
+
+    private final Lattice lattice;
+    private final int[] neighbourOffsets;
+    private final int layerStride;
+    private final int bottomLayer;
+    private final long[] open;
+    private final StatusUnionFind uf;
+    private int openSiteCount;
+    private boolean percolates;
+
+    // create a lattice with all sites blocked
+    public LatticePercolation(Lattice lattice) {
+        if (lattice == null) throw new IllegalArgumentException("lattice cannot be null");
+        this.lattice = lattice;
+        neighbourOffsets = lattice.neighbourOffsets();
+        layerStride = lattice.layerStride();
+        bottomLayer = lattice.dimension();
+        open = new long[(lattice.paddedSites() + 63) >>> 6];
+        uf = new StatusUnionFind(lattice.paddedSites());
+    }
+
+    public Lattice lattice() {
+        return lattice;
+    }
+
+    // open site if it is not open already
+    public void open(int site) {
+        int index = lattice.paddedIndex(site);
+        if (isOpenIndex(index))
+            return;
+
+        open[index >>> 6] |= 1L << index;
+        openSiteCount++;
+
+        int layer = index / layerStride;
+        int status = 0;
+        if (layer == 1)
+            status |= StatusUnionFind.CONNECTED_TOP;
+        if (layer == bottomLayer)
+            status |= StatusUnionFind.CONNECTED_BOTTOM;
+        uf.reset(index, status);
+        if (status == StatusUnionFind.PERCOLATING)
+            percolates = true; // a lattice one layer deep
+
+        // border sites are never open, so no bounds checks are needed here
+        for (int offset : neighbourOffsets)
+            if (isOpenIndex(index + offset) && uf.union(index, index + offset) == StatusUnionFind.PERCOLATING)
+                percolates = true;
+    }
+
+    // is site open?
+    public boolean isOpen(int site) {
+        return isOpenIndex(lattice.paddedIndex(site));
+    }
+
+    // is site full?
+    public boolean isFull(int site) {
+        int index = lattice.paddedIndex(site);
+        return isOpenIndex(index) && (uf.status(index) & StatusUnionFind.CONNECTED_TOP) != 0;
+    }
+
+    // number of open sites
+    public int numberOfOpenSites() {
+        return openSiteCount;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    private boolean isOpenIndex(int index) {
+        return (open[index >>> 6] & (1L << index)) != 0;
+    }
+
+}
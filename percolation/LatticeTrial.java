@@ -0,0 +1,42 @@
+package percolation;
+
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+// PermutationTrial for any Lattice: opens the sites of a LatticePercolation in the order of an
+// incremental Fisher-Yates shuffle until it percolates
+class LatticeTrial implements TrialStrategy {
+
+    private final IntFunction<Lattice> lattices;
+
+    // e.g. new LatticeTrial(Lattice::cubic)
+    public LatticeTrial(IntFunction<Lattice> lattices) {
+        if (lattices == null) throw new IllegalArgumentException("lattices cannot be null");
+        this.lattices = lattices;
+    }
+
+    public double threshold(int n, SplittableRandom random) {
+        LatticePercolation percolation = new LatticePercolation(lattices.apply(n));
+        int sites = percolation.lattice().sites();
+        int[] unopened = new int[sites]; // as PermutationTrial: site + 1, or 0 for the identity
+        int remaining = sites;
+
+        while (!percolation.percolates()) {
+            int pick = random.nextInt(remaining);
+            remaining--;
+            int site = siteAt(unopened, pick);
+            unopened[pick] = siteAt(unopened, remaining) + 1;
+            percolation.open(site);
+        }
+        return (double) percolation.numberOfOpenSites() / sites;
+    }
+
+    public long sites(int n) {
+        return lattices.apply(n).sites();
+    }
+
+    private static int siteAt(int[] unopened, int index) {
+        return (unopened[index] == 0) ? index : unopened[index] - 1;
+    }
+
+}
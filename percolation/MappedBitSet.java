@@ -0,0 +1,87 @@
+package percolation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// A fixed-size, long-indexed bitset held off the Java heap in a memory-mapped temporary file.
+// The file is mapped in 1 GiB chunks (a single MappedByteBuffer is limited to 2 GiB) and is
+// deleted when the bitset is closed. MappedByteBuffer rather than a MemorySegment, whose 64-bit
+// indexing would avoid the chunks, because the build targets Java 11 (maven.compiler.release),
+// which has no foreign memory API.
+class MappedBitSet implements Closeable {
+
+    private static final int CHUNK_BYTES_SHIFT = 30;
+    private static final int CHUNK_BITS_SHIFT = CHUNK_BYTES_SHIFT + 3;
+    private static final long CHUNK_BYTES = 1L << CHUNK_BYTES_SHIFT;
+
+    private final long size;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+
+    // create a bitset of the given number of bits, all clear, backed by a file in directory
+    public MappedBitSet(long size, Path directory) {
+        if (size <= 0) throw new IllegalArgumentException("size cannot be zero or less");
+        this.size = size;
+        long bytes = (size + 7) >>> 3;
+        try {
+            Path file = Files.createTempFile(directory, "percolation", ".bits");
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+            chunks = new MappedByteBuffer[(int) ((bytes + CHUNK_BYTES - 1) >>> CHUNK_BYTES_SHIFT)];
+            for (int i = 0; i < chunks.length; i++) {
+                long offset = (long) i << CHUNK_BYTES_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset, Math.min(CHUNK_BYTES, bytes - offset));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not map a bitset of " + size + " bits", e);
+        }
+    }
+
+    // number of bits
+    public long size() {
+        return size;
+    }
+
+    public boolean get(long index) {
+        MappedByteBuffer chunk = chunks[(int) (index >>> CHUNK_BITS_SHIFT)];
+        return (chunk.get(byteInChunk(index)) & (1 << (index & 7))) != 0;
+    }
+
+    public void set(long index) {
+        MappedByteBuffer chunk = chunks[(int) (index >>> CHUNK_BITS_SHIFT)];
+        int position = byteInChunk(index);
+        chunk.put(position, (byte) (chunk.get(position) | (1 << (index & 7))));
+    }
+
+    // clear every bit
+    public void clear() {
+        for (MappedByteBuffer chunk : chunks) {
+            int position = 0;
+            for (; position + 8 <= chunk.capacity(); position += 8)
+                chunk.putLong(position, 0L);
+            for (; position < chunk.capacity(); position++)
+                chunk.put(position, (byte) 0);
+        }
+    }
+
+    // close and delete the backing file; the mapping itself goes when its buffers are garbage collected
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int byteInChunk(long index) {
+        return (int) ((index >>> 3) & (CHUNK_BYTES - 1));
+    }
+
+}
@@ -0,0 +1,231 @@
+package percolation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Percolation that pushes events to registered PercolationListeners as open() performs unions,
+// so callers need not poll percolates() or isFull(). It is FastPercolation's padded bitset and
+// StatusUnionFind plus two per-site arrays: each cluster's size, kept at its root, and a circular
+// linked list of its sites (next[]), which is spliced in O(1) on union and walked once when the
+// cluster first reaches the top - so each site's "became full" event is found in O(1) amortised time.
+//
+// Events are buffered as ints and delivered every batchSize opens (or on flush()), keeping
+// listener calls out of the open() hot path. Listeners may add or remove listeners (themselves
+// included) from a callback; the change applies from the next event delivered.
+class ObservablePercolation implements PercolationSystem {
+
+    // event buffer record types, each followed by its payload ints
+    private static final int PERCOLATED = 0; // no payload
+    private static final int SITE_FULL = 1; // site
+    private static final int CLUSTERS_MERGED = 2; // size, other size
+
+    private final int dimension;
+    private final int width; // n + 2 - sites in one padded row
+    private final long[] open;
+    private final StatusUnionFind uf;
+    private final int[] size; // only meaningful at roots
+    private final int[] next; // next site in the same cluster, circularly
+    private final int batchSize;
+    private final List<PercolationListener> listeners;
+    private int openSiteCount;
+    private boolean percolates;
+
+    private int[] events;
+    private int eventsLength;
+    private int opensSinceFlush;
+
+    // create n-by-n grid, with all sites blocked, delivering events after every open()
+    public ObservablePercolation(int n) {
+        this(n, 1);
+    }
+
+    // create n-by-n grid, with all sites blocked, delivering events every batchSize opens
+    public ObservablePercolation(int n, int batchSize) {
+        if (n <= 0) throw new IllegalArgumentException("n cannot be zero or less");
+        if (n > FastPercolation.MAX_DIMENSION)
+            throw new IllegalArgumentException("n cannot be greater than " + FastPercolation.MAX_DIMENSION);
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize cannot be zero or less");
+
+        dimension = n;
+        width = n + 2;
+        this.batchSize = batchSize;
+
+        int paddedSites = width * width;
+        open = new long[(paddedSites + 63) >>> 6];
+        uf = new StatusUnionFind(paddedSites);
+        size = new int[paddedSites];
+        next = new int[paddedSites];
+        listeners = new CopyOnWriteArrayList<>(); // flush() can iterate while a callback changes it
+        events = new int[64];
+    }
+
+    public void addListener(PercolationListener listener) {
+        if (listener == null) throw new IllegalArgumentException("listener cannot be null");
+        listeners.add(listener);
+    }
+
+    public void removeListener(PercolationListener listener) {
+        listeners.remove(listener);
+    }
+
+    // open site (row, col) if it is not open already
+    public void open(int row, int col) {
+        checkIfInBounds(row, col);
+        int site = (row * width) + col;
+        if (isOpenSite(site))
+            return;
+
+        open[site >>> 6] |= 1L << site;
+        openSiteCount++;
+
+        size[site] = 1;
+        next[site] = site;
+        int status = 0;
+        if (row == 1) {
+            status |= StatusUnionFind.CONNECTED_TOP;
+            record(SITE_FULL, site);
+        }
+        if (row == dimension)
+            status |= StatusUnionFind.CONNECTED_BOTTOM;
+        uf.reset(site, status); // a closed site is always a lone root
+
+        // border sites are never open, so no bounds checks are needed here
+        if (isOpenSite(site - width))
+            union(site, site - width);
+        if (isOpenSite(site + width))
+            union(site, site + width);
+        if (isOpenSite(site - 1))
+            union(site, site - 1);
+        if (isOpenSite(site + 1))
+            union(site, site + 1);
+
+        if (!percolates && uf.status(site) == StatusUnionFind.PERCOLATING) {
+            percolates = true;
+            record(PERCOLATED);
+        }
+
+        if (++opensSinceFlush >= batchSize)
+            flush();
+    }
+
+    // deliver all buffered events to the listeners now
+    public void flush() {
+        opensSinceFlush = 0;
+        for (int i = 0; i < eventsLength; ) {
+            int type = events[i++];
+            if (type == PERCOLATED) {
+                for (PercolationListener listener : listeners)
+                    listener.percolated();
+            } else if (type == SITE_FULL) {
+                int site = events[i++];
+                for (PercolationListener listener : listeners)
+                    listener.siteBecameFull(site / width, site % width);
+            } else {
+                int clusterSize = events[i++];
+                int otherSize = events[i++];
+                for (PercolationListener listener : listeners)
+                    listener.clustersMerged(clusterSize, otherSize, clusterSize + otherSize);
+            }
+        }
+        eventsLength = 0;
+    }
+
+    // is site (row, col) open?
+    public boolean isOpen(int row, int col) {
+        checkIfInBounds(row, col);
+        return isOpenSite((row * width) + col);
+    }
+
+    // is site (row, col) full?
+    public boolean isFull(int row, int col) {
+        checkIfInBounds(row, col);
+        int site = (row * width) + col;
+        return isOpenSite(site) && (uf.status(site) & StatusUnionFind.CONNECTED_TOP) != 0;
+    }
+
+    // number of open sites
+    public int numberOfOpenSites() {
+        return openSiteCount;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    private boolean isOpenSite(int site) {
+        return (open[site >>> 6] & (1L << site)) != 0;
+    }
+
+    // join two open sites' clusters, recording the events it causes; events name the larger
+    // cluster first
+    private void union(int site, int otherSite) {
+        int root = uf.find(site);
+        int otherRoot = uf.find(otherSite);
+        if (root == otherRoot)
+            return;
+        if (size[root] < size[otherRoot]) {
+            int temp = root;
+            root = otherRoot;
+            otherRoot = temp;
+        }
+
+        // whichever side was not yet full becomes full with the other
+        boolean rootFull = (uf.status(root) & StatusUnionFind.CONNECTED_TOP) != 0;
+        boolean otherRootFull = (uf.status(otherRoot) & StatusUnionFind.CONNECTED_TOP) != 0;
+        if (rootFull && !otherRootFull)
+            recordFull(otherRoot);
+        else if (otherRootFull && !rootFull)
+            recordFull(root);
+
+        record(CLUSTERS_MERGED, size[root], size[otherRoot]);
+
+        int mergedSize = size[root] + size[otherRoot];
+        uf.union(root, otherRoot);
+        size[uf.find(root)] = mergedSize; // union-find links by rank, so either may be the new root
+
+        // splice the two circular lists into one
+        int temp = next[root];
+        next[root] = next[otherRoot];
+        next[otherRoot] = temp;
+    }
+
+    // record a SITE_FULL event for every site in the cluster containing site
+    private void recordFull(int site) {
+        int member = site;
+        do {
+            record(SITE_FULL, member);
+            member = next[member];
+        } while (member != site);
+    }
+
+    private void record(int type) {
+        ensureEventCapacity(1);
+        events[eventsLength++] = type;
+    }
+
+    private void record(int type, int value) {
+        ensureEventCapacity(2);
+        events[eventsLength++] = type;
+        events[eventsLength++] = value;
+    }
+
+    private void record(int type, int value, int otherValue) {
+        ensureEventCapacity(3);
+        events[eventsLength++] = type;
+        events[eventsLength++] = value;
+        events[eventsLength++] = otherValue;
+    }
+
+    private void ensureEventCapacity(int extra) {
+        if (eventsLength + extra > events.length)
+            events = Arrays.copyOf(events, Math.max(2 * events.length, eventsLength + extra));
+    }
+
+    private void checkIfInBounds(int row, int col) {
+        if (row <= 0 || row > dimension) throw new IndexOutOfBoundsException("Row '" + row + "' index out of bounds");
+        if (col <= 0 || col > dimension) throw new IndexOutOfBoundsException("Column '" + col + "' index out of bounds");
+    }
+
+}
@@ -2,13 +2,17 @@ package percolation;
 
 import edu.princeton.cs.algs4.WeightedQuickUnionUF;
 
-class Percolation {
+class Percolation implements PercolationSystem {
+
+    // status bits kept for each union-find root: which edges of the grid its cluster touches
+    private static final byte CONNECTED_TOP = 1;
+    private static final byte CONNECTED_BOTTOM = 2;
 
     private boolean[][] open;
     private int openSiteCount;
     private int dimension;
-    private int topConnector;
-    private int bottomConnector;
+    private boolean percolates;
+    private byte[] rootStatus; // only meaningful at union-find roots
     private WeightedQuickUnionUF wquf;
 
     // create n-by-n open, with all sites blocked
@@ -19,12 +23,13 @@ class Percolation {
         openSiteCount = 0;
 
         dimension = n;
+        percolates = false;
 
-        topConnector = 0;
-        bottomConnector = (n * n) + 1;
-
-        // initialise new Weighted Quick Union Union Find object
-        wquf = new WeightedQuickUnionUF((n * n) + 2); // +2 to allow for the two connectors
+        // initialise new Weighted Quick Union Union Find object - rather than joining sites to top
+        // and bottom virtual connectors (which makes isFull report sites only connected via the
+        // bottom once the system percolates), each root records which edges its cluster touches
+        wquf = new WeightedQuickUnionUF((n * n) + 1); // +1 as indexes start from 1
+        rootStatus = new byte[(n * n) + 1];
     }
 
     // open site (row, col) if it is not open already
@@ -38,32 +43,45 @@ class Percolation {
             openSiteCount++;
         }
 
+        byte status = rootStatus[wquf.find(currentSiteWQUFIndex)]; // the site may already be part of a cluster
+
         // check if in first row
         if (row == 1)
-            wquf.union(currentSiteWQUFIndex, topConnector); // connect to the top connector
+            status |= CONNECTED_TOP;
 
         // check if in bottom row
         if (row == dimension)
-            wquf.union(currentSiteWQUFIndex, bottomConnector); // connect to the bottom connector
+            status |= CONNECTED_BOTTOM;
 
         // check each of the surrounding sites - ensuring not out of bounds
 
             // check site above
             if ((row > 1) && (isOpen((row - 1), col)))
-                wquf.union(currentSiteWQUFIndex, calcWQUFIndex((row - 1), col));
+                status |= join(currentSiteWQUFIndex, calcWQUFIndex((row - 1), col));
 
             // check site below
             if ((row < dimension) && (isOpen((row + 1), col)))
-                wquf.union(currentSiteWQUFIndex, calcWQUFIndex((row + 1), col));
+                status |= join(currentSiteWQUFIndex, calcWQUFIndex((row + 1), col));
 
             // check left hand site
             if ((col > 1) && (isOpen(row, (col - 1))))
-                wquf.union(currentSiteWQUFIndex, calcWQUFIndex(row, (col - 1)));
+                status |= join(currentSiteWQUFIndex, calcWQUFIndex(row, (col - 1)));
 
             // check right hand site
             if ((col < dimension) && (isOpen(row, (col + 1))))
-                wquf.union(currentSiteWQUFIndex, calcWQUFIndex(row, (col + 1)));
+                status |= join(currentSiteWQUFIndex, calcWQUFIndex(row, (col + 1)));
+
+        // the merged cluster touches every edge any of its parts touched
+        rootStatus[wquf.find(currentSiteWQUFIndex)] = status;
+        if (status == (CONNECTED_TOP | CONNECTED_BOTTOM))
+            percolates = true;
+    }
 
+    // union the two sites, returning the status of the neighbour's cluster before the union
+    private byte join(int siteWQUFIndex, int neighbourWQUFIndex) {
+        byte neighbourStatus = rootStatus[wquf.find(neighbourWQUFIndex)];
+        wquf.union(siteWQUFIndex, neighbourWQUFIndex);
+        return neighbourStatus;
     }
 
     // is site (row, col) open?
@@ -75,7 +93,7 @@ class Percolation {
     // is site (row, col) full?
     public boolean isFull(int row, int col) {
         checkIfInBounds(row, col);
-        return wquf.connected(topConnector, calcWQUFIndex(row, col));
+        return open[row][col] && (rootStatus[wquf.find(calcWQUFIndex(row, col))] & CONNECTED_TOP) != 0;
     }
 
     // number of open sites
@@ -85,7 +103,7 @@ class Percolation {
 
     // does the system percolate?
     public boolean percolates() {
-        return wquf.connected(topConnector, bottomConnector);
+        return percolates;
     }
 
     private void checkIfInBounds(int row, int col) {
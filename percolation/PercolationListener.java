@@ -0,0 +1,15 @@
+package percolation;
+
+// callbacks for the events an ObservablePercolation emits as sites are opened
+interface PercolationListener {
+
+    // the system percolated; emitted once
+    void percolated();
+
+    // open site (row, col) became connected to the top row; emitted once per site
+    void siteBecameFull(int row, int col);
+
+    // two clusters of open sites, of the given sizes, were joined into one of mergedSize sites
+    void clustersMerged(int size, int otherSize, int mergedSize);
+
+}
@@ -1,56 +1,270 @@
 package percolation;
 
-import edu.princeton.cs.algs4.StdStats;
 import edu.princeton.cs.algs4.StdRandom;
 
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+
 class PercolationStats {
 
-    private final int totalTrials;
-    private final double[] fractionOpenSites;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L; // SplittableRandom's default seed increment
+    static final int TRIALS_PER_TASK = 16; // a fork-join task runs this many trials or fewer itself
+
+    private final ThresholdAccumulator results; // running statistics - no per-trial storage
 
     // perform trials independent experiments on an n-by-n grid
     public PercolationStats(int n, int trials) {
         Percolation percolation;
 
-        totalTrials = trials;
-        fractionOpenSites = new double[totalTrials];
+        checkArguments(n, trials);
+        results = new ThresholdAccumulator();
 
-        if (n <= 0) throw new IllegalArgumentException("n cannot be zero or less");
-        if (trials <= 0) throw new IllegalArgumentException("trials cannot be zero or less");
-
-        for (int i = 0; i < totalTrials; i++) {
+        for (int i = 0; i < trials; i++) {
             percolation = new Percolation(n);
             while (!percolation.percolates()) {
                 // add new random site
                 percolation.open(StdRandom.uniform(1, (n + 1)), StdRandom.uniform(1, (n + 1)));
             }
-            fractionOpenSites[i] = (double) percolation.numberOfOpenSites() / (n * n);
+            results.add((double) percolation.numberOfOpenSites() / (n * n));
+        }
+    }
+
+    // perform trials independent experiments on an n-by-n grid, spread over a new pool of the given size;
+    // each trial draws from its own stream derived from seed, so results do not depend on the thread count
+    public PercolationStats(int n, int trials, long seed, int threads) {
+        this(n, trials, seed, threads, new RandomSiteTrial(Percolation::new));
+    }
+
+    // as above, but running each trial with the given strategy
+    // (e.g. new PermutationTrial(FastPercolation::new), or new LatticeTrial(Lattice::cubic) for a size-n lattice)
+    public PercolationStats(int n, int trials, long seed, int threads, TrialStrategy strategy) {
+        checkArguments(n, trials);
+        if (threads <= 0) throw new IllegalArgumentException("threads cannot be zero or less");
+        if (strategy == null) throw new IllegalArgumentException("strategy cannot be null");
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            results = pool.invoke(new TrialTask(n, seed, strategy, 0, trials));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // perform trials independent experiments on an n-by-n grid using the given fork-join pool
+    public PercolationStats(int n, int trials, long seed, ForkJoinPool pool) {
+        this(n, trials, seed, pool, new RandomSiteTrial(Percolation::new));
+    }
+
+    // as above, but running each trial with the given strategy
+    public PercolationStats(int n, int trials, long seed, ForkJoinPool pool, TrialStrategy strategy) {
+        checkArguments(n, trials);
+        if (pool == null) throw new IllegalArgumentException("pool cannot be null");
+        if (strategy == null) throw new IllegalArgumentException("strategy cannot be null");
+
+        results = pool.invoke(new TrialTask(n, seed, strategy, 0, trials));
+    }
+
+    // statistics over previously gathered results, e.g. several runs' results() merged together
+    public PercolationStats(ThresholdAccumulator results) {
+        if (results == null) throw new IllegalArgumentException("results cannot be null");
+        if (results.count() == 0) throw new IllegalArgumentException("results cannot be empty");
+        this.results = results.copy();
+    }
+
+    // run trials in batches until the 95% confidence interval is at most 2 * halfWidth wide,
+    // always running at least minTrials and stopping after maxTrials regardless
+    public static PercolationStats untilHalfWidth(int n, double halfWidth, int minTrials, int maxTrials,
+                                                  long seed, ForkJoinPool pool, TrialStrategy strategy) {
+        if (!(halfWidth > 0)) throw new IllegalArgumentException("halfWidth must be positive");
+        return runUntil(n, halfWidth, 0, minTrials, maxTrials, seed, pool, strategy);
+    }
+
+    // run trials in batches until the 95% confidence interval's half-width is at most
+    // relativeError * mean, with the same trial limits as untilHalfWidth
+    public static PercolationStats untilRelativeError(int n, double relativeError, int minTrials, int maxTrials,
+                                                      long seed, ForkJoinPool pool, TrialStrategy strategy) {
+        if (!(relativeError > 0)) throw new IllegalArgumentException("relativeError must be positive");
+        return runUntil(n, 0, relativeError, minTrials, maxTrials, seed, pool, strategy);
+    }
+
+    // Each batch is sized from the current standard deviation to be just enough to reach the target,
+    // so typically only a couple of batches run. Trial i always uses trialSeed(seed, i), so for a given
+    // seed the stopping point does not depend on the pool's size.
+    private static PercolationStats runUntil(int n, double halfWidth, double relativeError, int minTrials,
+                                             int maxTrials, long seed, ForkJoinPool pool, TrialStrategy strategy) {
+        if (minTrials < 2) throw new IllegalArgumentException("minTrials cannot be less than 2");
+        if (maxTrials < minTrials) throw new IllegalArgumentException("maxTrials cannot be less than minTrials");
+        checkArguments(n, minTrials);
+        if (pool == null) throw new IllegalArgumentException("pool cannot be null");
+        if (strategy == null) throw new IllegalArgumentException("strategy cannot be null");
+
+        ThresholdAccumulator results = pool.invoke(new TrialTask(n, seed, strategy, 0, minTrials));
+        while (results.count() < maxTrials) {
+            double target = (halfWidth > 0) ? halfWidth : relativeError * results.mean();
+            double currentHalfWidth = (1.96 * results.stddev()) / Math.sqrt(results.count());
+            if (currentHalfWidth <= target)
+                break;
+            // half-width shrinks like 1/sqrt(trials): estimate the total needed, never less than
+            // a quarter more than we have so a noisy estimate cannot stall progress
+            double needed = results.count() * (currentHalfWidth / target) * (currentHalfWidth / target);
+            long batch = Math.max((long) Math.ceil(needed) - results.count(), (results.count() + 3) / 4);
+            int from = (int) results.count();
+            int to = (int) Math.min(maxTrials, from + batch);
+            results.merge(pool.invoke(new TrialTask(n, seed, strategy, from, to)));
         }
+        return new PercolationStats(results);
+    }
+
+    // splits a range of trials in half until it is small enough to run directly, merging the
+    // halves' results - the split points depend only on the range, so the merge order (and so
+    // every floating point result) is the same whatever the number of threads
+    private static class TrialTask extends RecursiveTask<ThresholdAccumulator> {
+        private static final long serialVersionUID = 1L;
+
+        private final int n;
+        private final long seed;
+        private final TrialStrategy strategy;
+        private final int from; // first trial (inclusive)
+        private final int to; // last trial (exclusive)
+
+        TrialTask(int n, long seed, TrialStrategy strategy, int from, int to) {
+            this.n = n;
+            this.seed = seed;
+            this.strategy = strategy;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ThresholdAccumulator compute() {
+            if (to - from <= TRIALS_PER_TASK) {
+                ThresholdAccumulator results = new ThresholdAccumulator();
+                for (int i = from; i < to; i++)
+                    results.add(strategy.threshold(n, new SplittableRandom(trialSeed(seed, i))));
+                return results;
+            }
+            int middle = (from + to) >>> 1;
+            TrialTask second = new TrialTask(n, seed, strategy, middle, to);
+            second.fork();
+            ThresholdAccumulator results = new TrialTask(n, seed, strategy, from, middle).compute();
+            results.merge(second.join());
+            return results;
+        }
+    }
+
+    // seed of the random stream used by a given trial - the trial'th output of a SplittableRandom(seed)
+    static long trialSeed(long seed, long trial) {
+        long z = seed + ((trial + 1) * GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // trial strategy for the given sampling mode and grid implementation names; grid must be null
+    // for the sampling modes that build their own connectivity, and given for the others
+    static TrialStrategy strategyFor(String sampling, String grid) {
+        if (takesGrid(sampling) != (grid != null))
+            throw new IllegalArgumentException("sampling mode '" + sampling + "' "
+                    + (takesGrid(sampling) ? "needs a grid" : "takes no grid, but was given '" + grid + "'"));
+        if (sampling.equals("large"))
+            return new LargeGridTrial(); // builds its own connectivity and never holds the grid in memory
+        if (sampling.equals("invasion"))
+            return new InvasionTrial(); // grows a single cluster with no union-find, so needs no grid
+        if (sampling.equals("lattice"))
+            return new LatticeTrial(n -> Lattice.named(grid, n)); // grid names the lattice
+
+        IntFunction<PercolationSystem> grids;
+        if (grid.equals("percolation"))
+            grids = Percolation::new;
+        else if (grid.equals("fast"))
+            grids = FastPercolation::new;
+        else
+            throw new IllegalArgumentException("unknown grid '" + grid + "'");
+
+        if (sampling.equals("random"))
+            return new RandomSiteTrial(grids);
+        if (sampling.equals("permutation"))
+            return new PermutationTrial(grids);
+        throw new IllegalArgumentException("unknown sampling mode '" + sampling + "'");
+    }
+
+    // does the sampling mode run on a grid (or lattice) chosen by name?
+    static boolean takesGrid(String sampling) {
+        return !sampling.equals("large") && !sampling.equals("invasion");
+    }
+
+    // the grid named at args[index], or the sampling mode's default (fast, the square lattice, or
+    // null for modes that take no grid) if absent
+    static String gridArgument(String[] args, int index, String sampling) {
+        if (args.length > index)
+            return args[index];
+        if (!takesGrid(sampling))
+            return null;
+        return sampling.equals("lattice") ? "square" : "fast";
+    }
+
+    private static void checkArguments(int n, int trials) {
+        if (n <= 0) throw new IllegalArgumentException("n cannot be zero or less");
+        if (trials <= 0) throw new IllegalArgumentException("trials cannot be zero or less");
     }
 
     // sample mean of percolation threshold
     public double mean() {
-        return StdStats.mean(fractionOpenSites);
+        return results.mean();
     }
 
     // sample standard deviation of percolation threshold
     public double stddev() {
-        return StdStats.stddev(fractionOpenSites);
+        return results.stddev();
     }
 
     // low endpoint of 95% confidence interval
     public double confidenceLo() {
-        return mean() - ((1.96 * stddev()) / Math.sqrt(totalTrials));
+        return mean() - ((1.96 * stddev()) / Math.sqrt(results.count()));
     }
 
     // high endpoint of 95% confidence interval
     public double confidenceHi() {
-        return mean() + ((1.96 * stddev()) / Math.sqrt(totalTrials));
+        return mean() + ((1.96 * stddev()) / Math.sqrt(results.count()));
+    }
+
+    // number of trials the statistics are over
+    public long trialsUsed() {
+        return results.count();
+    }
+
+    // estimated q-quantile of percolation threshold, to within one of ThresholdAccumulator's adaptive bins
+    public double quantile(double q) {
+        return results.quantile(q);
+    }
+
+    // a copy of the underlying results, for merging with other runs
+    public ThresholdAccumulator results() {
+        return results.copy();
     }
 
     // test client
     public static void main(String[] args) {
-        PercolationStats stats = new PercolationStats(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        PercolationStats stats;
+        if (args.length >= 7) { // n halfWidth minTrials maxTrials seed threads sampling [grid]
+            ForkJoinPool pool = new ForkJoinPool(Integer.parseInt(args[5]));
+            try {
+                stats = untilHalfWidth(Integer.parseInt(args[0]), Double.parseDouble(args[1]),
+                        Integer.parseInt(args[2]), Integer.parseInt(args[3]), Long.parseLong(args[4]),
+                        pool, strategyFor(args[6], gridArgument(args, 7, args[6])));
+            } finally {
+                pool.shutdown();
+            }
+        } else if (args.length >= 5) // n trials seed threads (random|permutation|invasion|large|lattice) [percolation|fast|square|moore|triangular|cubic]
+            stats = new PercolationStats(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                    Long.parseLong(args[2]), Integer.parseInt(args[3]), strategyFor(args[4], gridArgument(args, 5, args[4])));
+        else if (args.length >= 4) // n trials seed threads
+            stats = new PercolationStats(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                    Long.parseLong(args[2]), Integer.parseInt(args[3]));
+        else
+            stats = new PercolationStats(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
 
         System.out.println("mean = " + stats.mean());
         System.out.println("stddev = " + stats.stddev());
@@ -60,6 +274,8 @@ class PercolationStats {
                         ", " +
                         stats.confidenceHi()
         );
+        System.out.println("median = " + stats.quantile(0.5));
+        System.out.println("trials = " + stats.trialsUsed());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,302 @@
+package percolation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Runs PercolationStats-style trials over a list of (n, trials) pairs, appending every trial's
+// result to a memory-mapped binary log so a crashed or stopped sweep can resume where it left off.
+//
+// The log is a 40 byte header - magic, version, seed, a hash of the pairs, a hash of the sampling
+// mode and grid, and the number of committed records - followed by fixed 32 byte records:
+//   long trial seed | int n | int trial | long open sites | long sites
+// so resuming with different settings is refused rather than mixing two experiments in one log.
+// Records are written straight into the mapping, 1 MiB at a time, in batches; once a batch is
+// forced to disk the header's committed count is advanced and forced too, so anything past that
+// count (a batch cut short by a crash) is simply overwritten on resume. The calling thread writes
+// and forces each batch while the pool is already running the next one. Trial t of pair p uses the stream seeded by
+// trialSeed(trialSeed(seed, p), t), so resuming re-derives exactly the RNG states a single
+// uninterrupted run would have used, and any logged trial can be replayed from its stored seed.
+class PercolationSweep implements Closeable {
+
+    private static final int MAGIC = 0x50435357; // "PCSW"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 40;
+    private static final int COMMITTED_OFFSET = 32;
+    private static final int RECORD_BYTES = 32;
+    private static final long RECORDS_PER_REGION = 1L << 15; // 1 MiB mapped at a time
+    private static final int BATCH_TRIALS = 1024; // trials between checkpoints
+
+    private final int[] sizes;
+    private final int[] trials;
+    private final long seed;
+    private final String strategyName;
+    private final TrialStrategy strategy;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer region;
+    private long regionIndex;
+    private long committed;
+
+    // open the log at file for a sweep running trials[i] trials on sizes[i]-by-sizes[i] grids with
+    // PercolationStats' sampling mode and grid of those names (grid null for modes that take none),
+    // creating it if needed or resuming it if it was written by the same sweep
+    public PercolationSweep(Path file, int[] sizes, int[] trials, long seed, String sampling, String grid) {
+        if (file == null) throw new IllegalArgumentException("file cannot be null");
+        if (sizes == null || trials == null || sizes.length != trials.length)
+            throw new IllegalArgumentException("sizes and trials must be non-null and the same length");
+        for (int i = 0; i < sizes.length; i++)
+            if (sizes[i] <= 0 || trials[i] <= 0)
+                throw new IllegalArgumentException("sizes and trials cannot be zero or less");
+        if (sampling == null) throw new IllegalArgumentException("sampling cannot be null");
+
+        this.sizes = sizes.clone();
+        this.trials = trials.clone();
+        this.seed = seed;
+        strategy = PercolationStats.strategyFor(sampling, grid);
+        strategyName = (grid == null) ? sampling : sampling + ":" + grid; // only what changes the trials
+        regionIndex = -1;
+
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean fresh = channel.size() == 0;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            if (fresh) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putLong(8, seed);
+                header.putLong(16, pairsHash());
+                header.putLong(24, strategyHash());
+                header.putLong(COMMITTED_OFFSET, 0);
+                header.force();
+            } else {
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+                    throw new IllegalArgumentException("'" + file + "' is not a percolation sweep log");
+                if (header.getLong(8) != seed || header.getLong(16) != pairsHash())
+                    throw new IllegalArgumentException("'" + file + "' was written by a different sweep");
+                if (header.getLong(24) != strategyHash())
+                    throw new IllegalArgumentException("'" + file + "' was written with a different sampling mode or grid than " + strategyName);
+            }
+            committed = header.getLong(COMMITTED_OFFSET);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not open sweep log '" + file + "'", e);
+        }
+    }
+
+    // run (or finish) the sweep on pool, checkpointing every BATCH_TRIALS trials
+    public void run(ForkJoinPool pool) {
+        if (pool == null) throw new IllegalArgumentException("pool cannot be null");
+
+        // two buffers: the pool fills one while this thread writes and forces the other
+        double[][] thresholds = {new double[BATCH_TRIALS], new double[BATCH_TRIALS]};
+        int batch = 0;
+        boolean written = true; // has the last batch run been written?
+        long lastRecord = 0;
+        int lastPair = 0;
+        int lastFrom = 0;
+        int lastTo = 0;
+
+        long record = 0;
+        for (int pair = 0; pair < sizes.length; pair++) {
+            long pairSeed = PercolationStats.trialSeed(seed, pair);
+            // skip whatever part of this pair is already committed
+            int from = (int) Math.max(0, Math.min(trials[pair], committed - record));
+            record += from;
+            while (from < trials[pair]) {
+                int to = Math.min(trials[pair], from + BATCH_TRIALS);
+                ForkJoinTask<Void> task = pool.submit(new BatchTask(sizes[pair], pairSeed, strategy,
+                        thresholds[batch & 1], from, from, to));
+                if (!written)
+                    writeBatch(thresholds[(batch - 1) & 1], lastRecord, lastPair, lastFrom, lastTo);
+                task.join();
+                written = false;
+                lastRecord = record;
+                lastPair = pair;
+                lastFrom = from;
+                lastTo = to;
+                batch++;
+                record += to - from;
+                from = to;
+            }
+        }
+        if (!written)
+            writeBatch(thresholds[(batch - 1) & 1], lastRecord, lastPair, lastFrom, lastTo);
+    }
+
+    // number of trial records safely on disk
+    public long recordsCommitted() {
+        return committed;
+    }
+
+    // has every trial of every pair been committed?
+    public boolean isComplete() {
+        long total = 0;
+        for (int count : trials)
+            total += count;
+        return committed == total;
+    }
+
+    // statistics over the committed trials of pair (sizes[pair], trials[pair])
+    public ThresholdAccumulator results(int pair) {
+        if (pair < 0 || pair >= sizes.length) throw new IndexOutOfBoundsException("Pair '" + pair + "' index out of bounds");
+        long first = 0;
+        for (int i = 0; i < pair; i++)
+            first += trials[i];
+        long last = Math.min(committed, first + trials[pair]);
+
+        ThresholdAccumulator results = new ThresholdAccumulator();
+        for (long record = first; record < last; record++) {
+            int position = positionOf(record);
+            results.add((double) region.getLong(position + 16) / region.getLong(position + 24));
+        }
+        return results;
+    }
+
+    // seed of the random stream logged for a trial, to replay it with new SplittableRandom(seed)
+    public long trialSeedOf(long record) {
+        if (record < 0 || record >= committed) throw new IndexOutOfBoundsException("Record '" + record + "' index out of bounds");
+        return region.getLong(positionOf(record));
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // write trials [from, to) of pair, whose thresholds are in batch, as the records from record on,
+    // and commit them
+    private void writeBatch(double[] batch, long record, int pair, int from, int to) {
+        long pairSeed = PercolationStats.trialSeed(seed, pair);
+        long sites = strategy.sites(sizes[pair]);
+        for (int trial = from; trial < to; trial++)
+            write(record++, PercolationStats.trialSeed(pairSeed, trial), sizes[pair], trial,
+                    Math.round(batch[trial - from] * sites), sites);
+        commit(record);
+    }
+
+    private void write(long record, long trialSeed, int n, int trial, long openSites, long sites) {
+        int position = positionOf(record);
+        region.putLong(position, trialSeed);
+        region.putInt(position + 8, n);
+        region.putInt(position + 12, trial);
+        region.putLong(position + 16, openSites);
+        region.putLong(position + 24, sites);
+    }
+
+    // force the records, then publish the new count - in that order, so a crash never commits
+    // records that are not on disk
+    private void commit(long records) {
+        if (region != null)
+            region.force();
+        header.putLong(COMMITTED_OFFSET, records);
+        header.force();
+        committed = records;
+    }
+
+    // map the region holding record, returning the record's position within it
+    private int positionOf(long record) {
+        long index = record / RECORDS_PER_REGION;
+        if (index != regionIndex) {
+            if (region != null)
+                region.force();
+            try {
+                region = channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_BYTES + (index * RECORDS_PER_REGION * RECORD_BYTES), RECORDS_PER_REGION * RECORD_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            regionIndex = index;
+        }
+        return (int) ((record % RECORDS_PER_REGION) * RECORD_BYTES);
+    }
+
+    private long pairsHash() {
+        long hash = 17;
+        for (int i = 0; i < sizes.length; i++)
+            hash = (31 * ((31 * hash) + sizes[i])) + trials[i];
+        return hash;
+    }
+
+    private long strategyHash() {
+        long hash = 17;
+        for (int i = 0; i < strategyName.length(); i++)
+            hash = (31 * hash) + strategyName.charAt(i);
+        return hash;
+    }
+
+    // runs trials [from, to) of one pair into thresholds[trial - offset], splitting like PercolationStats
+    private static class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int n;
+        private final long pairSeed;
+        private final TrialStrategy strategy;
+        private final double[] thresholds;
+        private final int offset;
+        private final int from;
+        private final int to;
+
+        BatchTask(int n, long pairSeed, TrialStrategy strategy, double[] thresholds, int offset, int from, int to) {
+            this.n = n;
+            this.pairSeed = pairSeed;
+            this.strategy = strategy;
+            this.thresholds = thresholds;
+            this.offset = offset;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PercolationStats.TRIALS_PER_TASK) {
+                for (int trial = from; trial < to; trial++)
+                    thresholds[trial - offset] = strategy.threshold(n, new SplittableRandom(PercolationStats.trialSeed(pairSeed, trial)));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(n, pairSeed, strategy, thresholds, offset, from, middle),
+                    new BatchTask(n, pairSeed, strategy, thresholds, offset, middle, to));
+        }
+    }
+
+    // test client: file n:trials[,n:trials...] seed threads [sampling [grid]] - rerun with the same
+    // arguments to resume
+    public static void main(String[] args) {
+        String[] pairs = args[1].split(",");
+        int[] sizes = new int[pairs.length];
+        int[] trials = new int[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            String[] pair = pairs[i].split(":");
+            sizes[i] = Integer.parseInt(pair[0]);
+            trials[i] = Integer.parseInt(pair[1]);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Integer.parseInt(args[3]));
+        String sampling = (args.length > 4) ? args[4] : "permutation";
+        String grid = PercolationStats.gridArgument(args, 5, sampling);
+        try (PercolationSweep sweep = new PercolationSweep(Paths.get(args[0]), sizes, trials, Long.parseLong(args[2]), sampling, grid)) {
+            System.out.println("resuming after " + sweep.recordsCommitted() + " trials");
+            sweep.run(pool);
+            for (int i = 0; i < sizes.length; i++) {
+                PercolationStats stats = new PercolationStats(sweep.results(i));
+                System.out.println("n = " + sizes[i] + ": mean = " + stats.mean() + ", stddev = " + stats.stddev());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
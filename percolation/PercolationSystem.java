@@ -0,0 +1,22 @@
+package percolation;
+
+// the operations PercolationStats needs from an n-by-n percolation system, so
+// different implementations can be swapped in behind the same API
+interface PercolationSystem {
+
+    // open site (row, col) if it is not open already
+    void open(int row, int col);
+
+    // is site (row, col) open?
+    boolean isOpen(int row, int col);
+
+    // is site (row, col) full?
+    boolean isFull(int row, int col);
+
+    // number of open sites
+    int numberOfOpenSites();
+
+    // does the system percolate?
+    boolean percolates();
+
+}
@@ -0,0 +1,39 @@
+package percolation;
+
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+// opens sites in the order of a random permutation, drawn one step of a Fisher-Yates
+// shuffle at a time, so every open() call opens a new site
+class PermutationTrial implements TrialStrategy {
+
+    private final IntFunction<PercolationSystem> grids;
+
+    public PermutationTrial(IntFunction<PercolationSystem> grids) {
+        if (grids == null) throw new IllegalArgumentException("grids cannot be null");
+        this.grids = grids;
+    }
+
+    public double threshold(int n, SplittableRandom random) {
+        PercolationSystem percolation = grids.apply(n);
+        // unopened[i] holds site + 1, or 0 while slot i still holds its own site i,
+        // so the array never needs filling with the identity permutation up front
+        int[] unopened = new int[n * n];
+        int remaining = unopened.length;
+
+        while (!percolation.percolates()) {
+            // swap a random unopened site to the end of the unopened range
+            int pick = random.nextInt(remaining);
+            remaining--;
+            int site = siteAt(unopened, pick);
+            unopened[pick] = siteAt(unopened, remaining) + 1;
+            percolation.open((site / n) + 1, (site % n) + 1);
+        }
+        return (double) percolation.numberOfOpenSites() / ((double) n * n);
+    }
+
+    private static int siteAt(int[] unopened, int index) {
+        return (unopened[index] == 0) ? index : unopened[index] - 1;
+    }
+
+}
@@ -0,0 +1,23 @@
+package percolation;
+
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+// picks a uniformly random (row, col) for every open() - including sites that are already open
+class RandomSiteTrial implements TrialStrategy {
+
+    private final IntFunction<PercolationSystem> grids;
+
+    public RandomSiteTrial(IntFunction<PercolationSystem> grids) {
+        if (grids == null) throw new IllegalArgumentException("grids cannot be null");
+        this.grids = grids;
+    }
+
+    public double threshold(int n, SplittableRandom random) {
+        PercolationSystem percolation = grids.apply(n);
+        while (!percolation.percolates())
+            percolation.open(random.nextInt(1, n + 1), random.nextInt(1, n + 1));
+        return (double) percolation.numberOfOpenSites() / ((double) n * n);
+    }
+
+}
@@ -0,0 +1,75 @@
+package percolation;
+
+import java.util.Arrays;
+
+// The union-find kernel shared by FastPercolation and LatticePercolation: a single int[] where a
+// non-negative entry is a parent and a negative entry marks a root holding ~(rank << 2 | status).
+// The status bits say whether the cluster touches the top and/or bottom, so neither needs virtual
+// connectors. find() halves paths as it goes and union() links by rank.
+class StatusUnionFind {
+
+    static final int CONNECTED_TOP = 1;
+    static final int CONNECTED_BOTTOM = 2;
+    static final int PERCOLATING = CONNECTED_TOP | CONNECTED_BOTTOM;
+
+    private static final int STATUS_BITS = 2;
+    private static final int STATUS_MASK = (1 << STATUS_BITS) - 1;
+
+    private final int[] uf;
+
+    // create sites lone roots, of rank 0 touching neither edge
+    public StatusUnionFind(int sites) {
+        uf = new int[sites];
+        Arrays.fill(uf, ~0);
+    }
+
+    // make site (which must still be a lone root) a lone root with the given status bits
+    public void reset(int site, int status) {
+        uf[site] = ~status;
+    }
+
+    // status bits of site's cluster
+    public int status(int site) {
+        return ~uf[find(site)] & STATUS_MASK;
+    }
+
+    // root of site, halving the path to it as we go
+    public int find(int site) {
+        int parent = uf[site];
+        while (parent >= 0) {
+            int grandparent = uf[parent];
+            if (grandparent < 0)
+                return parent;
+            uf[site] = grandparent;
+            site = grandparent;
+            parent = uf[site];
+        }
+        return site;
+    }
+
+    // link the root of the lower ranked tree below the other, merging their status bits;
+    // returns the merged cluster's status
+    public int union(int site, int otherSite) {
+        int root = find(site);
+        int otherRoot = find(otherSite);
+        if (root == otherRoot)
+            return ~uf[root] & STATUS_MASK;
+        int rootInfo = ~uf[root];
+        int otherRootInfo = ~uf[otherRoot];
+        int rank = rootInfo >>> STATUS_BITS;
+        int otherRank = otherRootInfo >>> STATUS_BITS;
+        if (rank < otherRank) {
+            int temp = root;
+            root = otherRoot;
+            otherRoot = temp;
+            rank = otherRank;
+        } else if (rank == otherRank) {
+            rank++;
+        }
+        int status = (rootInfo | otherRootInfo) & STATUS_MASK;
+        uf[otherRoot] = root;
+        uf[root] = ~((rank << STATUS_BITS) | status);
+        return status;
+    }
+
+}
@@ -0,0 +1,216 @@
+package percolation;
+
+import java.util.Arrays;
+
+// Running statistics over percolation thresholds, in O(1) memory per accumulator however many
+// are added: count, mean and sum of squared deviations are updated with Welford's method, and two
+// accumulators (say from separate threads, runs or machines) merge exactly with Chan et al.'s
+// formula.
+//
+// Quantiles come from the first EXACT thresholds kept as they are, so the small accumulators a
+// fork-join leaf builds cost a few hundred bytes and merge in O(EXACT); past that they move into
+// an adaptive histogram of BINS bins. Its bin width is a power of two, doubled (merging bins in
+// pairs) only when the thresholds seen no longer span fewer than BINS bins, so it tracks the
+// spread of the data rather than all of [0, 1]: a quantile is accurate to within one bin, at most
+// 2 (max - min) / (BINS - 1) wide for the smallest and largest thresholds added. Bins sit on
+// multiples of the width, so two histograms merge exactly by coarsening the finer one.
+class ThresholdAccumulator {
+
+    static final int BINS = 1024;
+    static final int EXACT = 64;
+
+    private static final double MIN_WIDTH = 0x1p-40;
+
+    private long count;
+    private double mean;
+    private double sumSquaredDeviations;
+
+    private double[] exact; // the thresholds while there are at most EXACT of them, else null
+    private int exactCount;
+
+    private long[] histogram; // created once there are more than EXACT thresholds
+    private double width; // bin width, a power of two
+    private long offset; // bin i covers [(offset + i) * width, (offset + i + 1) * width)
+    private int lowBin; // lowest and highest non-empty bins
+    private int highBin;
+
+    // create an empty accumulator
+    public ThresholdAccumulator() {
+    }
+
+    // add one threshold, which must lie in [0, 1]
+    public void add(double threshold) {
+        if (!(threshold >= 0 && threshold <= 1)) throw new IllegalArgumentException("threshold must be between 0 and 1");
+        count++;
+        double delta = threshold - mean;
+        mean += delta / count;
+        sumSquaredDeviations += delta * (threshold - mean);
+        record(threshold);
+    }
+
+    // fold every threshold added to other into this accumulator
+    public void merge(ThresholdAccumulator other) {
+        if (other == null) throw new IllegalArgumentException("other cannot be null");
+        if (other.count == 0)
+            return;
+        if (other == this)
+            other = copy();
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * ((double) other.count / total);
+        sumSquaredDeviations += other.sumSquaredDeviations + (delta * delta * ((double) count * other.count / total));
+        count = total;
+
+        if (other.histogram == null) {
+            for (int i = 0; i < other.exactCount; i++)
+                record(other.exact[i]);
+            return;
+        }
+        if (histogram == null) { // start from a copy of other's histogram, then add our own thresholds
+            double[] ours = exact;
+            int ourCount = exactCount;
+            exact = null;
+            exactCount = 0;
+            histogram = other.histogram.clone();
+            width = other.width;
+            offset = other.offset;
+            lowBin = other.lowBin;
+            highBin = other.highBin;
+            for (int i = 0; i < ourCount; i++)
+                addToHistogram(ours[i], 1);
+            return;
+        }
+        if (other.width > width) {
+            int shift = Math.getExponent(other.width) - Math.getExponent(width);
+            rebin(shift, (offset + lowBin) >> shift, (offset + highBin) >> shift);
+        }
+        // each of other's bins lies wholly within one of ours, so adding at its lower edge is exact
+        for (int bin = other.lowBin; bin <= other.highBin; bin++)
+            if (other.histogram[bin] != 0)
+                addToHistogram((other.offset + bin) * other.width, other.histogram[bin]);
+    }
+
+    // an independent copy of this accumulator
+    public ThresholdAccumulator copy() {
+        ThresholdAccumulator copy = new ThresholdAccumulator();
+        copy.merge(this);
+        return copy;
+    }
+
+    // number of thresholds added
+    public long count() {
+        return count;
+    }
+
+    // sample mean, or NaN if empty
+    public double mean() {
+        return (count == 0) ? Double.NaN : mean;
+    }
+
+    // sample standard deviation, or NaN with fewer than two thresholds
+    public double stddev() {
+        return (count < 2) ? Double.NaN : Math.sqrt(sumSquaredDeviations / (count - 1));
+    }
+
+    // estimated q-quantile (0 <= q <= 1): interpolated between the nearest thresholds while they are
+    // all kept, then linearly within its histogram bin
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("q must be between 0 and 1");
+        if (count == 0) throw new IllegalStateException("no thresholds added");
+        if (histogram == null) {
+            double[] sorted = Arrays.copyOf(exact, exactCount);
+            Arrays.sort(sorted);
+            double position = q * (exactCount - 1);
+            int below = (int) position;
+            if (below == exactCount - 1)
+                return sorted[below];
+            return sorted[below] + ((position - below) * (sorted[below + 1] - sorted[below]));
+        }
+        double rank = q * count;
+        long seen = 0;
+        for (int bin = lowBin; bin <= highBin; bin++) {
+            if (histogram[bin] > 0 && seen + histogram[bin] >= rank)
+                return (offset + bin + ((rank - seen) / histogram[bin])) * width;
+            seen += histogram[bin];
+        }
+        return (offset + highBin + 1) * width;
+    }
+
+    private void record(double threshold) {
+        if (histogram != null) {
+            addToHistogram(threshold, 1);
+            return;
+        }
+        if (exact == null)
+            exact = new double[8];
+        else if (exactCount == exact.length && exactCount < EXACT)
+            exact = Arrays.copyOf(exact, 2 * exactCount);
+        if (exactCount < EXACT) {
+            exact[exactCount++] = threshold;
+            return;
+        }
+
+        // one threshold too many: move them all into a histogram just wide enough for their spread
+        double min = threshold;
+        double max = threshold;
+        for (int i = 0; i < exactCount; i++) {
+            min = Math.min(min, exact[i]);
+            max = Math.max(max, exact[i]);
+        }
+        histogram = new long[BINS];
+        width = MIN_WIDTH;
+        lowBin = BINS;
+        highBin = -1; // empty
+        long first = (long) Math.floor(min / width);
+        long last = (long) Math.floor(max / width);
+        int shift = 0;
+        while ((last >> shift) - (first >> shift) >= BINS)
+            shift++;
+        rebin(shift, first >> shift, last >> shift);
+        for (int i = 0; i < exactCount; i++)
+            addToHistogram(exact[i], 1);
+        addToHistogram(threshold, 1);
+        exact = null;
+        exactCount = 0;
+    }
+
+    private void addToHistogram(double threshold, long n) {
+        long index = (long) Math.floor(threshold / width);
+        if (index < offset || index >= offset + BINS) { // widen or recentre until it fits
+            long first = Math.min(index, offset + lowBin);
+            long last = Math.max(index, offset + highBin);
+            int shift = 0;
+            while ((last >> shift) - (first >> shift) >= BINS)
+                shift++;
+            rebin(shift, first >> shift, last >> shift);
+            index = (long) Math.floor(threshold / width);
+        }
+        int bin = (int) (index - offset);
+        histogram[bin] += n;
+        lowBin = Math.min(lowBin, bin);
+        highBin = Math.max(highBin, bin);
+    }
+
+    // multiply the bin width by 2^shift, centring the bins on [first, last] (bin indices at the new
+    // width), which must cover every non-empty bin
+    private void rebin(int shift, long first, long last) {
+        long newOffset = first - ((BINS - (last - first + 1)) / 2);
+        long[] bins = new long[BINS];
+        int newLowBin = BINS;
+        int newHighBin = -1;
+        for (int bin = lowBin; bin <= highBin; bin++) {
+            if (histogram[bin] != 0) {
+                int newBin = (int) (((offset + bin) >> shift) - newOffset);
+                bins[newBin] += histogram[bin];
+                newLowBin = Math.min(newLowBin, newBin);
+                newHighBin = Math.max(newHighBin, newBin);
+            }
+        }
+        histogram = bins;
+        width = Math.scalb(width, shift);
+        offset = newOffset;
+        lowBin = newLowBin;
+        highBin = newHighBin;
+    }
+
+}
@@ -0,0 +1,16 @@
+package percolation;
+
+import java.util.SplittableRandom;
+
+// one way of running a single percolation experiment for PercolationStats
+interface TrialStrategy {
+
+    // fraction of the size-n grid's (or lattice's) sites that are open when it first percolates
+    double threshold(int n, SplittableRandom random);
+
+    // number of sites in a size-n grid (or lattice), so a threshold can be turned back into a count
+    default long sites(int n) {
+        return (long) n * n;
+    }
+
+}
@@ -0,0 +1,346 @@
+package queues;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Thread-safe RandomizedQueue. Items are striped over independently locked segments, by default one
+// per available processor, and every random choice comes from ThreadLocalRandom, so threads working
+// on different segments never contend. enqueue adds to a random segment; dequeue and sample choose a
+// segment with probability proportional to its size, then a uniformly random slot in it.
+//
+// The size-weighted choice is by rejection, so it reads one segment rather than all of them: pick a
+// segment uniformly and accept it with probability size / bound, where bound is a power of two at
+// least every segment's size, else try again. Enqueues raise bound as segments grow; when many tries
+// in a row are rejected because the queue has shrunk, bound is lowered again with every segment
+// locked, so no size can exceed it. Segments are padded to their own cache lines, so the sizes the
+// choice reads are not falsely shared with other segments' writes.
+//
+// Uniformity: with no other thread modifying the queue during the call, every item is equally likely
+// (each try accepts a segment with probability proportional to its size, then takes 1 / size of its
+// items). While other threads are enqueueing or dequeueing, a size read before taking the lock may be
+// slightly stale, so items are chosen near-uniformly rather than exactly. (Accepting any non-empty
+// segment would be cheaper, but would favour items in the smaller segments.)
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+
+    private final Segment<Item>[] segments;
+    private final AtomicInteger bound = new AtomicInteger(1); // a power of two, at least every segment's size
+
+    // construct an empty randomized queue with one segment per available processor
+    public ConcurrentRandomizedQueue() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // construct an empty randomized queue with the given number of segments
+    public ConcurrentRandomizedQueue(int segmentCount) {
+        if (segmentCount <= 0)
+            throw new IllegalArgumentException("segmentCount cannot be zero or less");
+        @SuppressWarnings({"unchecked", "rawtypes"}) // must cast due to java limitations with generics
+        Segment<Item>[] created = (Segment<Item>[]) new Segment[segmentCount];
+        segments = created;
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = new PaddedSegment<>();
+    }
+
+    // is the randomized queue empty? (a snapshot - other threads may change it straight away)
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // return the number of items on the randomized queue (likewise a snapshot)
+    public int size() {
+        long total = 0;
+        for (Segment<Item> segment : segments)
+            total += segment.size;
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    // add the item
+    public void enqueue(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot add a null element");
+        Segment<Item> segment = segments[ThreadLocalRandom.current().nextInt(segments.length)];
+        synchronized (segment) {
+            segment.add(item);
+            if (segment.size > bound.get()) // only when a segment outgrows a power of two
+                bound.accumulateAndGet(Integer.highestOneBit(segment.size) << 1, Math::max);
+        }
+    }
+
+    // remove and return a random item
+    public Item dequeue() {
+        Item item = poll();
+        if (item == null)
+            throw new NoSuchElementException("RandomizedQueue is empty");
+        return item;
+    }
+
+    // remove and return a random item, or null if the queue is empty
+    public Item poll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int rejected = 0;
+        while (true) {
+            Segment<Item> segment = segments[random.nextInt(segments.length)];
+            int size = segment.size;
+            if (size > 0 && random.nextInt(bound.get()) < size) {
+                synchronized (segment) {
+                    if (segment.size > 0)
+                        return segment.remove(random.nextInt(segment.size));
+                }
+                // the segment was emptied since we read its size - choose again
+            } else if (++rejected == 4 * segments.length) {
+                if (isEmpty())
+                    return null;
+                tightenBound();
+                rejected = 0;
+            }
+        }
+    }
+
+    // return a random item (but do not remove it)
+    public Item sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int rejected = 0;
+        while (true) {
+            Segment<Item> segment = segments[random.nextInt(segments.length)];
+            int size = segment.size;
+            if (size > 0 && random.nextInt(bound.get()) < size) {
+                synchronized (segment) {
+                    if (segment.size > 0)
+                        return segment.arr[random.nextInt(segment.size)];
+                }
+            } else if (++rejected == 4 * segments.length) {
+                if (isEmpty())
+                    throw new NoSuchElementException("RandomizedQueue is empty");
+                tightenBound();
+                rejected = 0;
+            }
+        }
+    }
+
+    // lower bound to the smallest power of two above the largest segment, if that is below it now;
+    // every segment is locked while bound is set, so no enqueue can slip past the new value
+    private void tightenBound() {
+        int largest = 0;
+        for (Segment<Item> segment : segments)
+            largest = Math.max(largest, segment.size);
+        if (Integer.highestOneBit(largest) << 1 < bound.get())
+            lockAllThenTighten(0);
+    }
+
+    private void lockAllThenTighten(int first) {
+        if (first < segments.length) {
+            synchronized (segments[first]) {
+                lockAllThenTighten(first + 1);
+            }
+            return;
+        }
+        int largest = 0;
+        for (Segment<Item> segment : segments)
+            largest = Math.max(largest, segment.size);
+        bound.set(Math.max(1, Integer.highestOneBit(largest) << 1));
+    }
+
+    // return an independent iterator over items in random order - over a copy of each segment,
+    // taken one segment at a time, so it reflects no single instant while the queue is changing
+    public Iterator<Item> iterator() {
+        return new RandomIterator();
+    }
+
+    private class RandomIterator implements Iterator<Item> {
+        private int endIndexCopy;
+        private Item[] arrCopy;
+
+        public RandomIterator() {
+            arrCopy = (Item[]) new Object[Math.max(1, size())];
+            endIndexCopy = -1;
+            for (Segment<Item> segment : segments) {
+                synchronized (segment) {
+                    if (endIndexCopy + 1 + segment.size > arrCopy.length) // grew since we sized the copy
+                        arrCopy = Arrays.copyOf(arrCopy, 2 * (endIndexCopy + 1 + segment.size));
+                    System.arraycopy(segment.arr, 0, arrCopy, endIndexCopy + 1, segment.size);
+                    endIndexCopy += segment.size;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return endIndexCopy >= 0;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext())
+                throw new NoSuchElementException("No more items");
+            int rand = ThreadLocalRandom.current().nextInt(endIndexCopy + 1);
+            Item removedItem = arrCopy[rand];
+            arrCopy[rand] = arrCopy[endIndexCopy];
+            arrCopy[endIndexCopy] = null;
+            endIndexCopy--; // reduce known end index
+            return removedItem;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Remove operation unsupported");
+        }
+    }
+
+    // one stripe: an unordered array like RandomizedQueue's, guarded by its own monitor; size is
+    // volatile so other threads can weigh the segment without taking the lock, but written with
+    // lazySet - those readers only need a recent value, not a full fence on every enqueue and dequeue
+    private static class Segment<Item> extends LeadingPadding {
+        @SuppressWarnings("unchecked") // Segment.class can only name the raw type
+        private static final AtomicIntegerFieldUpdater<Segment<?>> SIZE = (AtomicIntegerFieldUpdater<Segment<?>>)
+                (AtomicIntegerFieldUpdater<?>) AtomicIntegerFieldUpdater.newUpdater(Segment.class, "size");
+
+        private Item[] arr = (Item[]) new Object[2];
+        private volatile int size;
+
+        private void add(Item item) {
+            if (size == arr.length) // if array full
+                resizeArray(2 * arr.length);
+            arr[size] = item;
+            SIZE.lazySet(this, size + 1);
+        }
+
+        // remove the item at index, moving the last item into its place
+        private Item remove(int index) {
+            int last = size - 1;
+            Item removedItem = arr[index];
+            arr[index] = arr[last];
+            arr[last] = null;
+            SIZE.lazySet(this, last);
+            // if array <= 25% full, resize
+            if (last > 0 && last <= arr.length / 4)
+                resizeArray(arr.length / 2);
+            return removedItem;
+        }
+
+        private void resizeArray(int newCapacity) {
+            arr = Arrays.copyOf(arr, newCapacity);
+        }
+    }
+
+    // Fields are laid out superclass first, so a PaddedSegment keeps 56 bytes either side of arr and
+    // size, and two segments' sizes (or a size and another segment's lock word) never share a cache line
+    private static class LeadingPadding {
+        private long p0, p1, p2, p3, p4, p5, p6;
+    }
+
+    private static class PaddedSegment<Item> extends Segment<Item> {
+        private long q0, q1, q2, q3, q4, q5, q6;
+    }
+
+    // test client: checks uniformity with chi-squared tests, then measures throughput of mixed
+    // enqueue/dequeue from 1, 2, 4... threads against RandomizedQueue guarded by synchronized
+    public static void main(String[] args) throws InterruptedException {
+        checkUniformity(false, false);
+        checkUniformity(true, false);
+        checkUniformity(false, true);
+
+        ConcurrentRandomizedQueue<Integer> items = new ConcurrentRandomizedQueue<>(4);
+        for (int i = 0; i < 1000; i++)
+            items.enqueue(i);
+        boolean[] seen = new boolean[1000];
+        for (int item : items) {
+            if (seen[item])
+                throw new IllegalStateException("item " + item + " returned twice");
+            seen[item] = true;
+        }
+        for (int i = 0; i < seen.length; i++)
+            if (!seen[i])
+                throw new IllegalStateException("item " + i + " never returned");
+        System.out.println("iterator returned every item exactly once");
+
+        int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 2_000_000;
+        int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ConcurrentRandomizedQueue<Integer> striped = new ConcurrentRandomizedQueue<>();
+            double stripedRate = throughput(threads, operations, striped::enqueue, striped::poll);
+
+            RandomizedQueue<Integer> queue = new RandomizedQueue<>();
+            double lockedRate = throughput(threads, operations,
+                    item -> {
+                        synchronized (queue) {
+                            queue.enqueue(item);
+                        }
+                    },
+                    () -> {
+                        synchronized (queue) {
+                            return queue.isEmpty() ? null : queue.dequeue();
+                        }
+                    });
+            System.out.printf("%d threads: ConcurrentRandomizedQueue %.1f ops/us | synchronized RandomizedQueue %.1f ops/us%n",
+                    threads, stripedRate, lockedRate);
+        }
+    }
+
+    // chi-squared test of the first dequeue (or sample) from 20 items on 4 segments - as if the queue
+    // had been much larger before, so bound must be tightened, if shrunk
+    private static void checkUniformity(boolean shrunk, boolean sample) {
+        int items = 20;
+        int trials = 200_000;
+        long[] counts = new long[items];
+        for (int trial = 0; trial < trials; trial++) {
+            ConcurrentRandomizedQueue<Integer> queue = new ConcurrentRandomizedQueue<>(4);
+            for (int i = 0; i < items; i++)
+                queue.enqueue(i); // lands on random segments, so segment sizes are uneven
+            if (shrunk)
+                queue.bound.set(1 << 12);
+            counts[sample ? queue.sample() : queue.dequeue()]++;
+        }
+        double chiSquared = 0;
+        double expected = (double) trials / items;
+        for (long count : counts)
+            chiSquared += ((count - expected) * (count - expected)) / expected;
+        // 99.9th percentile of chi-squared with items - 1 = 19 degrees of freedom is 43.82
+        String check = String.format("first %s over %d items%s", sample ? "sample" : "dequeue", items, shrunk ? " after shrinking" : "");
+        if (chiSquared >= 43.82)
+            throw new IllegalStateException(check + " is not uniform: chi-squared = " + chiSquared);
+        System.out.printf("%s: chi-squared = %.2f (uniform at 0.1%%)%n", check, chiSquared);
+    }
+
+    // operations per microsecond with the given number of threads each alternately enqueueing and
+    // dequeueing, checking that no item is lost or duplicated
+    private static double throughput(int threads, int operations, Consumer<Integer> enqueue,
+                                     Supplier<Integer> poll) throws InterruptedException {
+        int perThread = operations / (2 * threads);
+        AtomicLong removed = new AtomicLong();
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int first = (t * perThread) + 1;
+            workers[t] = new Thread(() -> {
+                long sum = 0;
+                for (int i = first; i < first + perThread; i++) {
+                    enqueue.accept(i);
+                    Integer item = poll.get();
+                    if (item != null)
+                        sum += item;
+                }
+                removed.addAndGet(sum);
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+        long elapsed = System.nanoTime() - start;
+
+        long sum = removed.get();
+        for (Integer item = poll.get(); item != null; item = poll.get())
+            sum += item;
+        long n = (long) threads * perThread;
+        if (sum != (n * (n + 1)) / 2)
+            throw new IllegalStateException("items lost or duplicated: sum " + sum);
+        return (2.0 * n * 1000) / elapsed;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+package queues;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+// Deque of ints on a circular int[] - RingBufferDeque without the boxing, so adding and removing
+// allocate nothing beyond the occasional resize and hot loops never unbox.
+public class IntDeque {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] arr;
+    private int head; // index of the first item
+    private int size;
+
+    // construct an empty deque
+    public IntDeque() {
+        arr = new int[MIN_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public int size() {
+        return size;
+    }
+
+    // add the item to the front
+    public void addFirst(int item) {
+        if (size == arr.length) // if array full
+            resizeArray(2 * arr.length);
+        head = (head - 1) & (arr.length - 1);
+        arr[head] = item;
+        size++;
+    }
+
+    // add the item to the back
+    public void addLast(int item) {
+        if (size == arr.length) // if array full
+            resizeArray(2 * arr.length);
+        arr[(head + size) & (arr.length - 1)] = item;
+        size++;
+    }
+
+    // remove and return the item from the front
+    public int removeFirst() {
+        if (isEmpty())
+            throw new NoSuchElementException("Deque is empty, no first element");
+        int firstItem = arr[head];
+        head = (head + 1) & (arr.length - 1);
+        size--;
+        shrinkIfSparse();
+        return firstItem;
+    }
+
+    // remove and return the item from the back
+    public int removeLast() {
+        if (isEmpty())
+            throw new NoSuchElementException("Deque is empty, no last element");
+        int lastItem = arr[(head + size - 1) & (arr.length - 1)];
+        size--;
+        shrinkIfSparse();
+        return lastItem;
+    }
+
+    // return an iterator over items in order from front to back
+    public PrimitiveIterator.OfInt iterator() {
+        return new IntIterator();
+    }
+
+    private class IntIterator implements PrimitiveIterator.OfInt {
+        private int offset = 0; // position relative to head
+
+        @Override
+        public boolean hasNext() {
+            return offset < size;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext())
+                throw new NoSuchElementException("No more items");
+            return arr[(head + offset++) & (arr.length - 1)];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Remove operation unsupported");
+        }
+    }
+
+    // if array <= 25% full, halve it
+    private void shrinkIfSparse() {
+        if (arr.length > MIN_CAPACITY && size <= arr.length / 4)
+            resizeArray(arr.length / 2);
+    }
+
+    // copy the items, front first, to the start of a new array of newCapacity (a power of two)
+    private void resizeArray(int newCapacity) {
+        int[] newArr = new int[newCapacity];
+        int firstPart = Math.min(size, arr.length - head); // items before the wrap
+        System.arraycopy(arr, head, newArr, 0, firstPart);
+        System.arraycopy(arr, 0, newArr, firstPart, size - firstPart);
+        arr = newArr;
+        head = 0;
+    }
+
+    // test client
+    public static void main(String[] args) {
+        IntDeque deque = new IntDeque();
+        for (int i = 0; i < 10; i++) {
+            deque.addFirst(-i);
+            deque.addLast(i);
+        }
+        PrimitiveIterator.OfInt items = deque.iterator();
+        while (items.hasNext())
+            System.out.print(items.nextInt() + " ");
+        System.out.println();
+        while (deque.size() > 1)
+            System.out.print(deque.removeFirst() + deque.removeLast() + " "); // pairs sum to zero
+        System.out.println();
+    }
+
+}
\ No newline at end of file
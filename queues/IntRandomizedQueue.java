@@ -0,0 +1,107 @@
+package queues;
+
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+// RandomizedQueue of ints on an int[] - no boxes, so enqueue and dequeue allocate nothing beyond
+// the occasional resize and sampled items never need unboxing.
+public class IntRandomizedQueue {
+
+    private int endIndex;
+    private int[] arr;
+
+    // construct an empty randomized queue
+    public IntRandomizedQueue() {
+        arr = new int[2];
+        endIndex = -1;
+    }
+
+    // is the randomized queue empty?
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // return the number of items on the randomized queue
+    public int size() {
+        return endIndex + 1;
+    }
+
+    // add the item
+    public void enqueue(int item) {
+        if (size() == arr.length) // if array full
+            arr = Arrays.copyOf(arr, 2 * arr.length);
+        endIndex++;
+        arr[endIndex] = item; // add item to queue
+    }
+
+    // remove and return a random item
+    public int dequeue() {
+        if (isEmpty())
+            throw new NoSuchElementException("RandomizedQueue is empty");
+        int rand = StdRandom.uniform(endIndex + 1);
+        int removedItem = arr[rand];
+        // move the item at the end index into the removed item's position
+        arr[rand] = arr[endIndex];
+        endIndex--;
+        // if array <= 25% full, resize
+        if (!isEmpty() && (size() <= (arr.length / 4)))
+            arr = Arrays.copyOf(arr, arr.length / 2);
+        return removedItem;
+    }
+
+    // return a random item (but do not remove it)
+    public int sample() {
+        if (isEmpty())
+            throw new NoSuchElementException("RandomizedQueue is empty");
+        return arr[StdRandom.uniform(endIndex + 1)];
+    }
+
+    // return an independent iterator over items in random order
+    public PrimitiveIterator.OfInt iterator() {
+        return new RandomIterator();
+    }
+
+    private class RandomIterator implements PrimitiveIterator.OfInt {
+        private int endIndexCopy = endIndex;
+        private final int[] arrCopy = Arrays.copyOf(arr, endIndex + 1);
+
+        @Override
+        public boolean hasNext() {
+            return endIndexCopy >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext())
+                throw new NoSuchElementException("No more items");
+            int rand = StdRandom.uniform(endIndexCopy + 1);
+            int removedItem = arrCopy[rand];
+            arrCopy[rand] = arrCopy[endIndexCopy];
+            endIndexCopy--; // reduce known end index
+            return removedItem;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Remove operation unsupported");
+        }
+    }
+
+    // test client
+    public static void main(String[] args) {
+        IntRandomizedQueue queue = new IntRandomizedQueue();
+        for (int i = 0; i < 10; i++)
+            queue.enqueue(i);
+        PrimitiveIterator.OfInt items = queue.iterator();
+        while (items.hasNext())
+            System.out.print(items.nextInt() + " ");
+        System.out.println();
+        while (!queue.isEmpty())
+            System.out.print(queue.dequeue() + " ");
+        System.out.println();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+package queues;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+// Deque of longs on a circular long[] - RingBufferDeque without the boxing, so adding and removing
+// allocate nothing beyond the occasional resize and hot loops never unbox.
+public class LongDeque {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] arr;
+    private int head; // index of the first item
+    private int size;
+
+    // construct an empty deque
+    public LongDeque() {
+        arr = new long[MIN_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public int size() {
+        return size;
+    }
+
+    // add the item to the front
+    public void addFirst(long item) {
+        if (size == arr.length) // if array full
+            resizeArray(2 * arr.length);
+        head = (head - 1) & (arr.length - 1);
+        arr[head] = item;
+        size++;
+    }
+
+    // add the item to the back
+    public void addLast(long item) {
+        if (size == arr.length) // if array full
+            resizeArray(2 * arr.length);
+        arr[(head + size) & (arr.length - 1)] = item;
+        size++;
+    }
+
+    // remove and return the item from the front
+    public long removeFirst() {
+        if (isEmpty())
+            throw new NoSuchElementException("Deque is empty, no first element");
+        long firstItem = arr[head];
+        head = (head + 1) & (arr.length - 1);
+        size--;
+        shrinkIfSparse();
+        return firstItem;
+    }
+
+    // remove and return the item from the back
+    public long removeLast() {
+        if (isEmpty())
+            throw new NoSuchElementException("Deque is empty, no last element");
+        long lastItem = arr[(head + size - 1) & (arr.length - 1)];
+        size--;
+        shrinkIfSparse();
+        return lastItem;
+    }
+
+    // return an iterator over items in order from front to back
+    public PrimitiveIterator.OfLong iterator() {
+        return new LongIterator();
+    }
+
+    private class LongIterator implements PrimitiveIterator.OfLong {
+        private int offset = 0; // position relative to head
+
+        @Override
+        public boolean hasNext() {
+            return offset < size;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext())
+                throw new NoSuchElementException("No more items");
+            return arr[(head + offset++) & (arr.length - 1)];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Remove operation unsupported");
+        }
+    }
+
+    // if array <= 25% full, halve it
+    private void shrinkIfSparse() {
+        if (arr.length > MIN_CAPACITY && size <= arr.length / 4)
+            resizeArray(arr.length / 2);
+    }
+
+    // copy the items, front first, to the start of a new array of newCapacity (a power of two)
+    private void resizeArray(int newCapacity) {
+        long[] newArr = new long[newCapacity];
+        int firstPart = Math.min(size, arr.length - head); // items before the wrap
+        System.arraycopy(arr, head, newArr, 0, firstPart);
+        System.arraycopy(arr, 0, newArr, firstPart, size - firstPart);
+        arr = newArr;
+        head = 0;
+    }
+
+    // test client
+    public static void main(String[] args) {
+        LongDeque deque = new LongDeque();
+        for (int i = 0; i < 10; i++) {
+            deque.addFirst(-i * 1_000_000_000_000L);
+            deque.addLast(i * 1_000_000_000_000L);
+        }
+        PrimitiveIterator.OfLong items = deque.iterator();
+        while (items.hasNext())
+            System.out.print(items.nextLong() + " ");
+        System.out.println();
+        while (deque.size() > 1)
+            System.out.print(deque.removeFirst() + deque.removeLast() + " "); // pairs sum to zero
+        System.out.println();
+    }
+
+}
\ No newline at end of file
@@ -1,17 +1,47 @@
 package queues;
 
 import edu.princeton.cs.algs4.StdIn;
+import edu.princeton.cs.algs4.StdRandom;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Iterator;
 
 /**
  * Takes an integer k as command line argument; reads a sequence of strings
  * from stdin; prints exactly k of them, uniformly at random.
+ * <p>
+ * With a second argument of --stream it keeps only k strings in memory rather
+ * than the whole input, reservoir sampling them straight off the stdin channel
+ * (and printing all of them if there are fewer than k).
+ * <p>
+ * With the single argument --check it instead tests the streaming mode's
+ * tokenizer and the uniformity of its sample.
  */
 public class Permutation {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args[0].equals("--check")) {
+            check();
+            return;
+        }
         final int k = Integer.parseInt(args[0]); // get number of strings to print from command line
+
+        if (args.length > 1 && args[1].equals("--stream")) {
+            String[] sample = reservoirSample(new TokenReader(new FileInputStream(FileDescriptor.in).getChannel()), k);
+            StdRandom.shuffle(sample); // the reservoir's order is not random (e.g. input order when k >= n)
+            for (String item : sample)
+                System.out.println(item);
+            return;
+        }
+
         RandomizedQueue<String> queueOfStrings = new RandomizedQueue<>();
 
         // read strings from std in
@@ -27,4 +57,164 @@ public class Permutation {
             System.out.println(iterator.next());
     }
 
+    // a uniformly random k-subset of the tokens, by Li's Algorithm L: rather than drawing a random
+    // number per token, draw how many tokens to skip before the next one enters the reservoir, so
+    // only O(k log(n/k)) random numbers are needed and skipped tokens are never turned into Strings
+    static String[] reservoirSample(TokenReader in, int k) throws IOException {
+        if (k < 0) throw new IllegalArgumentException("k cannot be less than zero");
+        String[] reservoir = new String[k];
+        for (int filled = 0; filled < k; filled++) {
+            String token = in.next();
+            if (token == null)
+                return Arrays.copyOf(reservoir, filled);
+            reservoir[filled] = token;
+        }
+        if (k == 0)
+            return reservoir;
+
+        double w = Math.exp(Math.log(1 - StdRandom.uniform()) / k); // 1 - uniform() is in (0, 1], so log is finite
+        while (true) {
+            double gap = Math.floor(Math.log(1 - StdRandom.uniform()) / Math.log1p(-w));
+            if (!in.skip((gap >= Long.MAX_VALUE) ? Long.MAX_VALUE : (long) gap))
+                return reservoir;
+            String token = in.next();
+            if (token == null)
+                return reservoir;
+            reservoir[StdRandom.uniform(k)] = token;
+            w *= Math.exp(Math.log(1 - StdRandom.uniform()) / k);
+        }
+    }
+
+    // test client for the streaming mode: tokens split correctly across reads, and each of 20 tokens
+    // lands in a 5-token sample equally often
+    private static void check() throws IOException {
+        byte[] text = "  alpha\tbeta\n\n gamma\r\ndelta  ".getBytes(StandardCharsets.UTF_8);
+        TokenReader reader = new TokenReader(oneByteAtATime(text));
+        String[] tokens = new String[5];
+        tokens[0] = reader.next();
+        tokens[1] = reader.next();
+        tokens[2] = reader.skip(1) ? "skipped" : "ended";
+        tokens[3] = reader.next();
+        tokens[4] = reader.next();
+        System.out.println("tokens read one byte at a time: " + Arrays.toString(tokens));
+        if (!Arrays.equals(tokens, new String[] {"alpha", "beta", "skipped", "delta", null}))
+            throw new IllegalStateException("tokens split incorrectly");
+        System.out.println("k above the token count returns them all: "
+                + Arrays.toString(reservoirSample(new TokenReader(oneByteAtATime(text)), 10)));
+
+        int n = 20;
+        int k = 5;
+        int trials = 100_000;
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < n; i++)
+            input.append(i).append('\n');
+        byte[] numbers = input.toString().getBytes(StandardCharsets.UTF_8);
+        long[] counts = new long[n];
+        for (int trial = 0; trial < trials; trial++)
+            for (String token : reservoirSample(new TokenReader(Channels.newChannel(new ByteArrayInputStream(numbers))), k))
+                counts[Integer.parseInt(token)]++;
+        double chiSquared = 0;
+        double expected = (double) trials * k / n;
+        for (long count : counts)
+            chiSquared += ((count - expected) * (count - expected)) / expected;
+        // 99.9th percentile of chi-squared with n - 1 = 19 degrees of freedom is 43.82
+        if (chiSquared >= 43.82)
+            throw new IllegalStateException(k + " of " + n + " tokens are not sampled uniformly: chi-squared = " + chiSquared);
+        System.out.printf("%d of %d tokens: chi-squared = %.2f (uniform at 0.1%%)%n", k, n, chiSquared);
+    }
+
+    // a channel handing out bytes one at a time, so every token straddles a buffer refill
+    private static ReadableByteChannel oneByteAtATime(byte[] bytes) {
+        ReadableByteChannel whole = Channels.newChannel(new ByteArrayInputStream(bytes));
+        return new ReadableByteChannel() {
+            public int read(ByteBuffer destination) throws IOException {
+                ByteBuffer one = ByteBuffer.allocate(1);
+                int read = whole.read(one);
+                if (read > 0)
+                    destination.put(one.array()[0]);
+                return read;
+            }
+
+            public boolean isOpen() {
+                return whole.isOpen();
+            }
+
+            public void close() throws IOException {
+                whole.close();
+            }
+        };
+    }
+
+    // Whitespace-separated tokens read through a channel into a reused buffer, decoding only the
+    // tokens asked for. Whitespace means the ASCII whitespace characters; unlike StdIn, Unicode
+    // spaces are not separators.
+    static class TokenReader {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private final byte[] bytes = buffer.array();
+        private int position;
+        private int limit;
+        private byte[] token = new byte[64];
+
+        TokenReader(ReadableByteChannel channel) {
+            if (channel == null) throw new IllegalArgumentException("channel cannot be null");
+            this.channel = channel;
+        }
+
+        // the next token, or null at the end of the input
+        String next() throws IOException {
+            if (!skipWhitespace())
+                return null;
+            int length = 0;
+            do {
+                while (position < limit && !isWhitespace(bytes[position])) {
+                    if (length == token.length)
+                        token = Arrays.copyOf(token, 2 * length);
+                    token[length++] = bytes[position++];
+                }
+            } while (position == limit && fill());
+            return new String(token, 0, length, StandardCharsets.UTF_8);
+        }
+
+        // pass over count tokens; false if the input ended first
+        boolean skip(long count) throws IOException {
+            for (long i = 0; i < count; i++) {
+                if (!skipWhitespace())
+                    return false;
+                do {
+                    while (position < limit && !isWhitespace(bytes[position]))
+                        position++;
+                } while (position == limit && fill());
+            }
+            return true;
+        }
+
+        // move to the start of the next token; false at the end of the input
+        private boolean skipWhitespace() throws IOException {
+            do {
+                while (position < limit) {
+                    if (!isWhitespace(bytes[position]))
+                        return true;
+                    position++;
+                }
+            } while (fill());
+            return false;
+        }
+
+        private boolean fill() throws IOException {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            position = 0;
+            limit = Math.max(0, read);
+            return read > 0;
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+        }
+    }
+
 }
\ No newline at end of file
@@ -2,13 +2,18 @@ package queues;
 
 import edu.princeton.cs.algs4.StdRandom;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
 
     private int endIndex;
     private Item[] arr;
+    private boolean shared; // an iterator may be reading arr, so copy it before changing an item in place
 
     // construct an empty randomized queue
     public RandomizedQueue() {
@@ -33,7 +38,49 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         if (size() == arr.length) // if array full
           resizeArray(2 * arr.length);
         endIndex++;
-        arr[endIndex] = item; // add item to queue
+        arr[endIndex] = item; // add item to queue (past any iterator's items, so arr need not be copied)
+    }
+
+    // add every item of the collection, growing the array at most once
+    public void enqueueAll(Collection<? extends Item> items) {
+        if (items == null)
+            throw new IllegalArgumentException("Cannot add a null collection");
+        int count = items.size();
+        ensureCapacity(count);
+        // write straight into the free slots past the end, only counting them in once all are added
+        int index = endIndex + 1;
+        for (Item item : items) {
+            if (item == null || index == endIndex + 1 + count) {
+                Arrays.fill(arr, endIndex + 1, index, null); // leave the queue unchanged
+                throw new IllegalArgumentException((item == null) ? "Cannot add a null element"
+                        : "Collection has more items than its size()");
+            }
+            arr[index++] = item;
+        }
+        endIndex = index - 1;
+    }
+
+    // add every item of the array, growing the array at most once
+    public void enqueueAll(Item[] items) {
+        if (items == null)
+            throw new IllegalArgumentException("Cannot add a null array");
+        for (Item item : items) // check first, so a null leaves the queue unchanged
+            if (item == null)
+                throw new IllegalArgumentException("Cannot add a null element");
+        ensureCapacity(items.length);
+        System.arraycopy(items, 0, arr, size(), items.length);
+        endIndex += items.length;
+    }
+
+    // make room for extra more items, growing the array at most once
+    private void ensureCapacity(int extra) {
+        if ((long) size() + extra > Integer.MAX_VALUE / 2)
+            throw new IllegalArgumentException("Cannot hold " + ((long) size() + extra) + " items");
+        int capacity = arr.length;
+        while (capacity < size() + extra) // keep doubling, as single enqueues would
+            capacity *= 2;
+        if (capacity != arr.length)
+            resizeArray(capacity);
     }
 
     // remove and return a random item
@@ -42,6 +89,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         if (isEmpty())
           throw new NoSuchElementException("RandomizedQueue is empty");
         rand = StdRandom.uniform(endIndex + 1);
+        unshare();
         Item removedItem = arr[rand];
         // now we have removed an item, move item in end index into its position and reduce size of list
         arr[rand] = arr[endIndex];
@@ -53,6 +101,33 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return removedItem;
     }
 
+    // remove and return k random items, in random order, with one partial Fisher-Yates pass over
+    // the end of the array and at most one shrink
+    public List<Item> dequeue(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("k cannot be less than zero");
+        if (k > size())
+            throw new NoSuchElementException("RandomizedQueue has fewer than " + k + " items");
+        if (k == 0)
+            return Collections.emptyList(); // nothing to remove, so no need to unshare the array
+        Item[] removed = (Item[]) new Object[k]; // must cast due to java limitations with generics
+        unshare();
+        for (int i = 0; i < k; i++) {
+            int rand = StdRandom.uniform(endIndex + 1);
+            removed[i] = arr[rand];
+            arr[rand] = arr[endIndex];
+            arr[endIndex] = null;
+            endIndex--;
+        }
+        // halve as many times as single dequeues would have, in one copy
+        int capacity = arr.length;
+        while (!isEmpty() && (size() <= (capacity / 4)))
+            capacity /= 2;
+        if (capacity != arr.length)
+            resizeArray(capacity);
+        return Arrays.asList(removed);
+    }
+
     // return a random item (but do not remove it)
     public Item sample() {
         int rand;
@@ -62,41 +137,66 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return arr[rand];
     }
 
-    // return an independent iterator over items in random order
+    // return k random items without removing them, either independently (withReplacement, so the
+    // same item may appear more than once) or k distinct items in random order
+    public List<Item> sample(int k, boolean withReplacement) {
+        if (k < 0)
+            throw new IllegalArgumentException("k cannot be less than zero");
+        if (k > 0 && isEmpty())
+            throw new NoSuchElementException("RandomizedQueue is empty");
+        if (!withReplacement && k > size())
+            throw new NoSuchElementException("RandomizedQueue has fewer than " + k + " items");
+        Item[] sampled = (Item[]) new Object[k]; // must cast due to java limitations with generics
+        if (withReplacement) {
+            for (int i = 0; i < k; i++)
+                sampled[i] = arr[StdRandom.uniform(endIndex + 1)];
+        } else { // the iterator's lazy shuffle, which leaves the array alone and costs O(k)
+            Iterator<Item> items = new RandomIterator(); // done with before any change, so arr is not shared
+            for (int i = 0; i < k; i++)
+                sampled[i] = items.next();
+        }
+        return Arrays.asList(sampled);
+    }
+
+    // return an independent iterator over the items at the time of the call, in random order; it
+    // reads the queue's own array rather than a copy, and the queue copies the array before its next
+    // dequeue instead, so later changes to the queue do not affect the iterator and an iterator used
+    // while the queue is left alone costs O(k) for k items
     public Iterator<Item> iterator() {
-        return new RandomIterator(); // as we need to make a copy of list each time, require newly initialised iterator
+        shared = true;
+        return new RandomIterator();
+    }
+
+    // give the queue its own array if an iterator may still be reading this one
+    private void unshare() {
+        if (shared)
+            resizeArray(arr.length);
     }
 
+    // A Fisher-Yates shuffle of the index range [0, size) run one step per next(), without
+    // materialising the range: indices still in their starting place are implicit, and only those
+    // displaced by a swap are recorded in a SwapMap. Taking k items costs O(k) time and memory
+    // whatever the queue's size.
     private class RandomIterator implements Iterator<Item> {
-        private int endIndexCopy;
-        private Item[] arrCopy;
-
-        public RandomIterator() {
-            arrCopy = (Item[]) new Object[endIndex + 1]; // must cast due to java limitations with generics
-            // copy each item in turn into the new 'copied' array
-            for (int index = 0; index <= endIndex; index++)
-                arrCopy[index] = arr[index];
-            // make copy of the main arrays end index for the new 'copied' array
-            endIndexCopy = endIndex;
-        }
+        private final SwapMap displaced = new SwapMap();
+        private final Item[] items = arr;
+        private int remaining = size();
 
         @Override
         public boolean hasNext() {
-            return endIndexCopy >= 0;
+            return remaining > 0;
         }
 
         @Override
         public Item next() {
-            int rand;
             if (!hasNext())
                 throw new NoSuchElementException("No more items");
-            rand = StdRandom.uniform(endIndexCopy + 1);
-            Item removedItem = arrCopy[rand];
-            // now we have removed an item, move item in end index into its position and reduce size of list
-            arrCopy[rand] = arrCopy[endIndexCopy];
-            arrCopy[endIndexCopy] = null;
-            endIndexCopy--; // reduce known end index
-            return removedItem;
+            int rand = StdRandom.uniform(remaining);
+            remaining--;
+            int chosen = displaced.get(rand);
+            // the index at the end of the unshuffled range moves into the chosen one's place
+            displaced.put(rand, displaced.get(remaining));
+            return items[chosen];
         }
 
         @Override
@@ -105,6 +205,54 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         }
     }
 
+    // int to int map by open addressing, where an absent key maps to itself; keys are stored plus
+    // one so that a zeroed slot means empty
+    private static class SwapMap {
+        private int[] keys = new int[16];
+        private int[] values = new int[16];
+        private int size;
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask)
+                if (keys[slot] == key + 1)
+                    return values[slot];
+            return key;
+        }
+
+        void put(int key, int value) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != 0 && keys[slot] != key + 1)
+                slot = (slot + 1) & mask;
+            if (keys[slot] == 0) {
+                keys[slot] = key + 1;
+                if (++size > keys.length / 2) { // keep at most half full, so probes stay short
+                    values[slot] = value;
+                    grow();
+                    return;
+                }
+            }
+            values[slot] = value;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[2 * oldKeys.length];
+            values = new int[2 * oldValues.length];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++)
+                if (oldKeys[slot] != 0)
+                    put(oldKeys[slot] - 1, oldValues[slot]);
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9; // Fibonacci hashing, then fold the well-mixed high bits down
+            return h ^ (h >>> 16);
+        }
+    }
+
     /*
     public String toString() {
         String result = "";
@@ -117,14 +265,83 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     */
 
     private void resizeArray(int newCapacity) {
-        Item[] newArr = (Item[]) new Object[newCapacity];
-        for (int i = 0; i <= endIndex; i++)
-            newArr[i] = arr[i];
-        arr = newArr;
+        arr = Arrays.copyOf(arr, newCapacity);
+        shared = false;
     }
 
+    // test client: the iterator yields every item once, in uniformly random order, unaffected by later
+    // changes to the queue, and takes the first few items of a large queue without touching the rest
     public static void main(String[] args) {
-        // tests
+        RandomizedQueue<Integer> queue = new RandomizedQueue<>();
+        for (int i = 0; i < 1000; i++)
+            queue.enqueue(i);
+        boolean[] seen = new boolean[1000];
+        for (int item : queue) {
+            if (seen[item])
+                throw new IllegalStateException("item " + item + " returned twice");
+            seen[item] = true;
+        }
+        for (int i = 0; i < seen.length; i++)
+            if (!seen[i])
+                throw new IllegalStateException("item " + i + " never returned");
+        System.out.println("every item returned exactly once");
+
+        // all 24 orders of 4 items should be equally likely
+        int trials = 240_000;
+        long[] counts = new long[24];
+        for (int trial = 0; trial < trials; trial++) {
+            RandomizedQueue<Integer> small = new RandomizedQueue<>();
+            for (int i = 0; i < 4; i++)
+                small.enqueue(i);
+            int order = 0;
+            boolean[] used = new boolean[4];
+            int remaining = 4;
+            for (int item : small) { // the item's rank among those not yet returned, as a mixed-radix digit
+                int rank = 0;
+                for (int i = 0; i < item; i++)
+                    if (!used[i])
+                        rank++;
+                used[item] = true;
+                order = (order * remaining--) + rank;
+            }
+            counts[order]++;
+        }
+        double chiSquared = 0;
+        double expected = (double) trials / counts.length;
+        for (long count : counts)
+            chiSquared += ((count - expected) * (count - expected)) / expected;
+        // 99.9th percentile of chi-squared with 23 degrees of freedom is 49.73
+        if (chiSquared >= 49.73)
+            throw new IllegalStateException("orders of 4 items are not uniform: chi-squared = " + chiSquared);
+        System.out.printf("orders of 4 items: chi-squared = %.2f (uniform at 0.1%%)%n", chiSquared);
+
+        Iterator<Integer> iterator = queue.iterator();
+        int returned = 0;
+        for (int i = 0; i < 10; i++, returned++)
+            iterator.next();
+        for (int i = 0; i < 990; i++)
+            queue.dequeue();
+        queue.enqueue(-1);
+        while (iterator.hasNext()) {
+            if (iterator.next() < 0)
+                throw new IllegalStateException("iterator saw an item enqueued after it was created");
+            returned++;
+        }
+        if (returned != 1000)
+            throw new IllegalStateException("iterator created before 990 dequeues returned " + returned + " of 1000 items");
+        System.out.println("iterator created before 990 dequeues still returned all 1000 items");
+
+        RandomizedQueue<Integer> large = new RandomizedQueue<>();
+        Integer item = 42;
+        for (int i = 0; i < 10_000_000; i++)
+            large.enqueue(item);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            Iterator<Integer> first = large.iterator();
+            for (int i = 0; i < 10; i++)
+                first.next();
+            System.out.printf("first 10 of 10,000,000 items: %.1f us%n", (System.nanoTime() - start) / 1e3);
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package queues;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+// Deque backed by a circular array rather than linked nodes, so adding an item allocates nothing
+// (beyond the occasional resize) and iteration walks contiguous memory. Capacity is always a power
+// of two, so positions wrap with a mask instead of a modulo; the array doubles when full and halves
+// when a quarter full, keeping every operation amortised O(1).
+public class RingBufferDeque<Item> implements Iterable<Item> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private Item[] arr;
+    private int head; // index of the first item
+    private int size;
+
+    // construct an empty deque
+    public RingBufferDeque() {
+        arr = (Item[]) new Object[MIN_CAPACITY]; // must cast due to java limitations with generics
+        head = 0;
+        size = 0;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public int size() {
+        return size;
+    }
+
+    // add the item to the front
+    public void addFirst(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot add a null element");
+        if (size == arr.length) // if array full
+            resizeArray(2 * arr.length);
+        head = (head - 1) & (arr.length - 1); // step back, wrapping round to the end of the array
+        arr[head] = item;
+        size++;
+    }
+
+    // add the item to the back
+    public void addLast(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot add a null element");
+        if (size == arr.length) // if array full
+            resizeArray(2 * arr.length);
+        arr[(head + size) & (arr.length - 1)] = item;
+        size++;
+    }
+
+    // remove and return the item from the front
+    public Item removeFirst() {
+        if (isEmpty())
+            throw new NoSuchElementException("Deque is empty, no first element");
+        Item firstItem = arr[head];
+        arr[head] = null; // avoid loitering
+        head = (head + 1) & (arr.length - 1);
+        size--;
+        shrinkIfSparse();
+        return firstItem;
+    }
+
+    // remove and return the item from the back
+    public Item removeLast() {
+        if (isEmpty())
+            throw new NoSuchElementException("Deque is empty, no last element");
+        int last = (head + size - 1) & (arr.length - 1);
+        Item lastItem = arr[last];
+        arr[last] = null; // avoid loitering
+        size--;
+        shrinkIfSparse();
+        return lastItem;
+    }
+
+    // return an iterator over items in order from front to back
+    public Iterator<Item> iterator() {
+        return new RingIterator();
+    }
+
+    private class RingIterator implements Iterator<Item> {
+        private int offset = 0; // position relative to head
+
+        @Override
+        public boolean hasNext() {
+            return offset < size;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext())
+                throw new NoSuchElementException("No more items");
+            return arr[(head + offset++) & (arr.length - 1)];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Remove operation unsupported");
+        }
+    }
+
+    // if array <= 25% full, halve it
+    private void shrinkIfSparse() {
+        if (arr.length > MIN_CAPACITY && size <= arr.length / 4)
+            resizeArray(arr.length / 2);
+    }
+
+    // copy the items, front first, to the start of a new array of newCapacity (a power of two)
+    private void resizeArray(int newCapacity) {
+        Item[] newArr = (Item[]) new Object[newCapacity];
+        int firstPart = Math.min(size, arr.length - head); // items before the wrap
+        System.arraycopy(arr, head, newArr, 0, firstPart);
+        System.arraycopy(arr, 0, newArr, firstPart, size - firstPart);
+        arr = newArr;
+        head = 0;
+    }
+
+    // test client: random operations checked against java.util.ArrayDeque, then the time to fill
+    // and drain the linked Deque and this one - bytes allocated per element are measured portably by
+    // the benchmarks module's DequeBenchmark, whose GC profiler reports gc.alloc.rate.norm
+    public static void main(String[] args) {
+        int items = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Random random = new Random(42);
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        RingBufferDeque<Integer> deque = new RingBufferDeque<>();
+        for (int i = 0; i < items; i++) {
+            int operation = random.nextInt(4);
+            if (operation == 0) {
+                deque.addFirst(i);
+                expected.addFirst(i);
+            } else if (operation == 1) {
+                deque.addLast(i);
+                expected.addLast(i);
+            } else if (!expected.isEmpty()) {
+                Integer removed = (operation == 2) ? deque.removeFirst() : deque.removeLast();
+                if (!removed.equals((operation == 2) ? expected.removeFirst() : expected.removeLast()))
+                    throw new IllegalStateException("removed item differs at operation " + i);
+            }
+            if (deque.size() != expected.size())
+                throw new IllegalStateException("size differs at operation " + i);
+        }
+        Iterator<Integer> iterator = deque.iterator();
+        for (Integer item : expected)
+            if (!item.equals(iterator.next()))
+                throw new IllegalStateException("iteration order differs");
+        System.out.println(items + " random operations match ArrayDeque");
+
+        Integer item = 42;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            Deque<Integer> linked = new Deque<>();
+            for (int i = 0; i < items; i++) {
+                linked.addFirst(item);
+                linked.addLast(item);
+            }
+            while (!linked.isEmpty())
+                linked.removeLast();
+            long linkedNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            RingBufferDeque<Integer> ring = new RingBufferDeque<>();
+            for (int i = 0; i < items; i++) {
+                ring.addFirst(item);
+                ring.addLast(item);
+            }
+            while (!ring.isEmpty())
+                ring.removeLast();
+            long ringNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: Deque %.1f ns/element | RingBufferDeque %.1f ns/element%n",
+                    round, linkedNanos / (2.0 * items), ringNanos / (2.0 * items));
+        }
+    }
+
+}
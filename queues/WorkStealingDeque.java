@@ -0,0 +1,264 @@
+package queues;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Lock-free deque for the owner/thief pattern, after Chase and Lev's work-stealing deque: one owner
+// thread pushes and pops at either end, while any number of other threads take from the front.
+//
+// Only the owner - whichever single thread calls addFirst, addLast, removeLast or pollLast - may use
+// those methods; removeFirst and pollFirst are safe from any thread, the owner included. Items live in
+// a circular power-of-two array indexed by two counters, top (the front) and bottom (one past the back).
+// The owner alone moves bottom, so pushing and popping at the back are plain volatile writes; top is
+// moved by compare-and-swap. Chase-Lev's top only ever increases, but addFirst moves it back down, so
+// top carries a version in its high 32 bits that addFirst bumps - otherwise a thief that read top,
+// stalled while the owner pushed to the front and another thief took it, could then swap top from the
+// same value and take an item twice. Taken slots are not cleared (a thief cannot tell whether the owner
+// has reused one), so up to one array's worth of removed items may stay reachable until overwritten.
+//
+// This is not a drop-in replacement for a synchronized Deque shared by many threads that all push
+// and pop at both ends: that needs a multi-producer, multi-consumer design, which this is not. Code
+// with several producers should give each its own deque and let the others steal, as work-stealing
+// thread pools do.
+public class WorkStealingDeque<Item> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private volatile Item[] arr;
+    private volatile int bottom; // index one past the last item, written only by the owner
+    private final AtomicLong top = new AtomicLong(); // version << 32 | index of the first item
+
+    // construct an empty deque
+    public WorkStealingDeque() {
+        arr = (Item[]) new Object[MIN_CAPACITY]; // must cast due to java limitations with generics
+    }
+
+    // is the deque empty? (a snapshot - other threads may change it straight away)
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // return the number of items on the deque (likewise a snapshot)
+    public int size() {
+        int t = index(top.get());
+        return Math.max(0, bottom - t);
+    }
+
+    // add the item to the front - owner only
+    public void addFirst(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot add a null element");
+        while (true) {
+            long current = top.get();
+            int t = index(current);
+            Item[] a = arr;
+            if (bottom - t >= a.length - 1) { // leave the slot in front of top free for the item
+                a = grow(a, t, bottom);
+                continue;
+            }
+            a[(t - 1) & (a.length - 1)] = item; // outside [top, bottom), so no thief reads it yet
+            if (top.compareAndSet(current, (((current >>> 32) + 1) << 32) | ((t - 1) & 0xFFFFFFFFL)))
+                return;
+            // a thief moved top in the meantime - retry against the new front
+        }
+    }
+
+    // add the item to the back - owner only
+    public void addLast(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot add a null element");
+        int b = bottom;
+        int t = index(top.get());
+        Item[] a = arr;
+        if (b - t >= a.length - 1)
+            a = grow(a, t, b);
+        a[b & (a.length - 1)] = item;
+        bottom = b + 1; // publishes the item to thieves
+    }
+
+    // remove and return the item from the front - any thread
+    public Item removeFirst() {
+        Item item = pollFirst();
+        if (item == null)
+            throw new NoSuchElementException("Deque is empty, no first element");
+        return item;
+    }
+
+    // remove and return the item from the back - owner only
+    public Item removeLast() {
+        Item item = pollLast();
+        if (item == null)
+            throw new NoSuchElementException("Deque is empty, no last element");
+        return item;
+    }
+
+    // remove and return the item from the front, or null if the deque is empty - any thread
+    public Item pollFirst() {
+        while (true) {
+            long current = top.get(); // read top before bottom, so a concurrent pop cannot be missed
+            int t = index(current);
+            int b = bottom;
+            if (b - t <= 0)
+                return null;
+            Item[] a = arr;
+            Item item = a[t & (a.length - 1)];
+            if (top.compareAndSet(current, (current & 0xFFFFFFFF00000000L) | ((t + 1) & 0xFFFFFFFFL)))
+                return item;
+            // lost to another thief or the owner taking the last item - retry
+        }
+    }
+
+    // remove and return the item from the back, or null if the deque is empty - owner only
+    public Item pollLast() {
+        int b = bottom - 1;
+        bottom = b; // claim the slot before looking at top (volatile write then read, so thieves see it)
+        long current = top.get();
+        int t = index(current);
+        if (b - t < 0) { // was empty
+            bottom = t;
+            return null;
+        }
+        Item[] a = arr;
+        Item item = a[b & (a.length - 1)];
+        if (b - t > 0) // more than one item left, so no thief can be after this one
+            return item;
+        // the last item - race the thieves for it by advancing top, then leave the deque empty
+        boolean won = top.compareAndSet(current, (current & 0xFFFFFFFF00000000L) | ((t + 1) & 0xFFFFFFFFL));
+        bottom = t + 1;
+        return won ? item : null;
+    }
+
+    // copy the items [t, b) into an array twice the size, at the same logical indices; thieves still
+    // reading the old array find the same items there, as nothing is removed from it
+    private Item[] grow(Item[] a, int t, int b) {
+        Item[] newArr = (Item[]) new Object[2 * a.length];
+        for (int i = t; i != b; i++)
+            newArr[i & (newArr.length - 1)] = a[i & (a.length - 1)];
+        arr = newArr;
+        return newArr;
+    }
+
+    private static int index(long top) {
+        return (int) top;
+    }
+
+    // contention test: owner pushes items at both ends (popping some back) while thieves take from
+    // the front, against Deque guarded by synchronized - args: items thieves
+    public static void main(String[] args) throws InterruptedException {
+        int items = (args.length > 0) ? Integer.parseInt(args[0]) : 2_000_000;
+        int thieves = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+
+        for (int round = 0; round < 3; round++) {
+            WorkStealingDeque<Integer> lockFree = new WorkStealingDeque<>();
+            long start = System.nanoTime();
+            int[][] taken = contend(items, thieves, lockFree::addFirst, lockFree::addLast, lockFree::pollLast, lockFree::pollFirst);
+            long lockFreeNanos = System.nanoTime() - start;
+            check(taken, items);
+
+            Deque<Integer> deque = new Deque<>();
+            Object lock = new Object();
+            start = System.nanoTime();
+            taken = contend(items, thieves,
+                    item -> {
+                        synchronized (lock) {
+                            deque.addFirst(item);
+                        }
+                    },
+                    item -> {
+                        synchronized (lock) {
+                            deque.addLast(item);
+                        }
+                    },
+                    () -> {
+                        synchronized (lock) {
+                            return deque.isEmpty() ? null : deque.removeLast();
+                        }
+                    },
+                    () -> {
+                        synchronized (lock) {
+                            return deque.isEmpty() ? null : deque.removeFirst();
+                        }
+                    });
+            long lockedNanos = System.nanoTime() - start;
+            check(taken, items);
+
+            System.out.printf("round %d: WorkStealingDeque %.1f ns/item | synchronized Deque %.1f ns/item%n",
+                    round, (double) lockFreeNanos / items, (double) lockedNanos / items);
+        }
+        System.out.println("every item taken exactly once in every round");
+    }
+
+    // every item 1..items must come out exactly once, whichever thread took it; taken[i] holds the
+    // items thread i removed, with the count in its last slot
+    private static void check(int[][] taken, int items) {
+        byte[] times = new byte[items + 1];
+        for (int[] removed : taken) {
+            for (int i = 0; i < removed[removed.length - 1]; i++) {
+                if (times[removed[i]]++ != 0)
+                    throw new IllegalStateException("item " + removed[i] + " taken twice");
+            }
+        }
+        for (int item = 1; item <= items; item++)
+            if (times[item] == 0)
+                throw new IllegalStateException("item " + item + " lost");
+    }
+
+    // the owner pushes 1..items, every third to the front (while thieves take from it) and the rest
+    // to the back, popping one back every fourth push, then drains the rest; returns the items each
+    // thread removed, the owner's first, as check() expects
+    private static int[][] contend(int items, int thieves, Consumer<Integer> pushFirst, Consumer<Integer> pushLast,
+                                   Supplier<Integer> pop, Supplier<Integer> steal)
+            throws InterruptedException {
+        int[][] taken = new int[thieves + 1][];
+        AtomicBoolean done = new AtomicBoolean();
+        Thread[] threads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            int thief = i + 1;
+            threads[i] = new Thread(() -> {
+                int[] removed = new int[1024];
+                int count = 0;
+                while (true) {
+                    Integer item = steal.get();
+                    if (item != null) {
+                        if (count == removed.length - 1)
+                            removed = Arrays.copyOf(removed, 2 * removed.length);
+                        removed[count++] = item;
+                    } else if (done.get()) {
+                        removed[removed.length - 1] = count;
+                        taken[thief] = removed;
+                        return;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        int[] removed = new int[items + 1];
+        int count = 0;
+        for (int i = 1; i <= items; i++) {
+            if (i % 3 == 0)
+                pushFirst.accept(i);
+            else
+                pushLast.accept(i);
+            if ((i & 3) == 0) {
+                Integer item = pop.get();
+                if (item != null)
+                    removed[count++] = item;
+            }
+        }
+        for (Integer item = pop.get(); item != null; item = pop.get())
+            removed[count++] = item;
+        done.set(true);
+        removed[items] = count;
+        taken[0] = removed;
+
+        for (Thread thread : threads)
+            thread.join(); // join() makes each thief's taken[] entry visible here
+        return taken;
+    }
+
+}
\ No newline at end of file